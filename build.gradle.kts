@@ -1,7 +1,10 @@
 @file:Suppress("UnstableApiUsage")
 
+import com.diffplug.gradle.spotless.SpotlessExtension
+import info.solidsoft.gradle.pitest.PitestPluginExtension
 import okio.ByteString.Companion.decodeBase64
 import org.checkerframework.gradle.plugin.CheckerFrameworkExtension
+import org.checkerframework.gradle.plugin.CheckerFrameworkTaskExtension
 import org.gradle.kotlin.dsl.configure
 
 plugins {
@@ -18,6 +21,7 @@ plugins {
   id("com.groupcdg.pitest.github") version "1.0.7"
   id("com.github.spotbugs") version "6.2.6"
   id("io.github.gradle-nexus.publish-plugin") version "2.0.0"
+  id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "eu.aylett"
@@ -59,14 +63,6 @@ dependencies {
   testImplementation(libs.mockito)
   testImplementation(libs.guava.testlib)
 
-  checkerFramework(libs.checkerframework)
-
-  pitest(libs.arcmutate.base)
-  pitest(libs.logback.classic)
-  pitest(libs.pitest.accelerator.junit5)
-  pitest(libs.pitest.git.plugin)
-  pitest(libs.slf4j.api)
-
   internal(libs.junit.jupiter)
   internal(libs.pitest)
   internal(libs.pitest.junit5.plugin)
@@ -98,94 +94,133 @@ testing {
 
 aylett { jvm { jvmVersion = 21 } }
 
-configure<CheckerFrameworkExtension> {
-  extraJavacArgs =
-      listOf(
-          // "-AcheckPurityAnnotations",
-          "-AconcurrentSemantics",
-      )
-  checkers =
-      listOf(
-          "org.checkerframework.checker.nullness.NullnessChecker",
-          "org.checkerframework.common.initializedfields.InitializedFieldsChecker",
-      )
+jmh {
+  jmhVersion = libs.versions.jmh
+  profilers = listOf("gc")
+  resultFormat = "JSON"
 }
 
-spotless {
-  java {
-    importOrder("", "java|javax|jakarta", "\\#", "\\#java|\\#javax|\\#jakarta").semanticSort()
-    removeUnusedImports()
-    eclipse().configFile("./config/eclipse-java-formatter.xml")
-    formatAnnotations()
-  }
-  kotlinGradle {
-    ktlint()
-    ktfmt()
-  }
+// Benchmarks, and the code JMH generates from them, set up their state outside
+// constructors
+tasks.named<JavaCompile>("compileJmhJava") {
+  extensions.configure<CheckerFrameworkTaskExtension> { skipCheckerFramework = true }
 }
 
-checkstyle {
-  toolVersion =
-      internal.dependencies
-          .find { it.group == "com.puppycrawl.tools" && it.name == "checkstyle" }!!
-          .version!!
-  maxWarnings = 0
+tasks.named<JavaCompile>("jmhCompileGeneratedClasses") {
+  extensions.configure<CheckerFrameworkTaskExtension> { skipCheckerFramework = true }
 }
 
-tasks.withType(JavaCompile::class) { mustRunAfter(tasks.named("spotlessJavaCheck")) }
+val isCI = providers.environmentVariable("CI").isPresent
 
-tasks.named("prepareKotlinBuildScriptModel").configure {
-  mustRunAfter(tasks.named("spotlessKotlinGradleCheck"))
-}
+// The library and its integration modules all get the same static analysis,
+// formatting and mutation testing
+allprojects {
+  // Subprojects apply the Java plugin in their own build scripts, after this runs
+  pluginManager.withPlugin("java") {
+    apply(plugin = "org.checkerframework")
+    apply(plugin = "com.diffplug.spotless")
+    apply(plugin = "checkstyle")
+    apply(plugin = "info.solidsoft.pitest")
+    apply(plugin = "com.github.spotbugs")
+
+    dependencies {
+      "checkerFramework"(libs.checkerframework)
+
+      "pitest"(libs.arcmutate.base)
+      "pitest"(libs.logback.classic)
+      "pitest"(libs.pitest.accelerator.junit5)
+      "pitest"(libs.pitest.git.plugin)
+      "pitest"(libs.slf4j.api)
+    }
 
-tasks.named("check").configure { dependsOn(tasks.named("spotlessCheck")) }
+    configure<CheckerFrameworkExtension> {
+      extraJavacArgs =
+          listOf(
+              // "-AcheckPurityAnnotations",
+              "-AconcurrentSemantics",
+          )
+      checkers =
+          listOf(
+              "org.checkerframework.checker.nullness.NullnessChecker",
+              "org.checkerframework.common.initializedfields.InitializedFieldsChecker",
+          )
+    }
 
-val isCI = providers.environmentVariable("CI").isPresent
+    configure<SpotlessExtension> {
+      java {
+        importOrder("", "java|javax|jakarta", "\\#", "\\#java|\\#javax|\\#jakarta").semanticSort()
+        removeUnusedImports()
+        eclipse().configFile(rootProject.file("config/eclipse-java-formatter.xml"))
+        formatAnnotations()
+      }
+      kotlinGradle {
+        ktlint()
+        ktfmt()
+      }
+    }
 
-if (!isCI) {
-  tasks.named("spotlessJavaCheck").configure { dependsOn(tasks.named("spotlessJavaApply")) }
-  tasks.named("spotlessKotlinGradleCheck").configure {
-    dependsOn(tasks.named("spotlessKotlinGradleApply"))
-  }
-}
+    configure<CheckstyleExtension> {
+      toolVersion =
+          internal.dependencies
+              .find { it.group == "com.puppycrawl.tools" && it.name == "checkstyle" }!!
+              .version!!
+      configDirectory = rootProject.layout.projectDirectory.dir("config/checkstyle")
+      maxWarnings = 0
+    }
+
+    tasks.withType(JavaCompile::class) { mustRunAfter(tasks.named("spotlessJavaCheck")) }
+
+    tasks.named("check").configure { dependsOn(tasks.named("spotlessCheck")) }
+
+    if (!isCI) {
+      tasks.named("spotlessJavaCheck").configure { dependsOn(tasks.named("spotlessJavaApply")) }
+      tasks.named("spotlessKotlinGradleCheck").configure {
+        dependsOn(tasks.named("spotlessKotlinGradleApply"))
+      }
+    }
 
-val historyLocation = projectDir.resolve("build/pitest/history")
-
-pitest {
-  targetClasses.add("eu.aylett.*")
-
-  junit5PluginVersion =
-      internal.dependencies
-          .find { it.group == "org.pitest" && it.name == "pitest-junit5-plugin" }!!
-          .version
-  verbosity = "NO_SPINNER"
-  pitestVersion =
-      internal.dependencies.find { it.group == "org.pitest" && it.name == "pitest" }!!.version
-  failWhenNoMutations = false
-  mutators = listOf("STRONGER", "EXTENDED")
-  timeoutFactor = BigDecimal.TEN
-
-  exportLineCoverage = true
-  features.add("+auto_threads")
-  if (isCI) {
-    // Running in GitHub Actions
-    features.addAll("+git(from[HEAD~1])", "+gitci(level[warning])")
-    outputFormats = listOf("html", "xml", "gitci")
-    failWhenNoMutations = false
-  } else {
-    historyInputLocation = historyLocation
-    historyOutputLocation = historyLocation
-    features.addAll("-gitci")
-    outputFormats = listOf("html", "xml")
-    failWhenNoMutations = true
+    val historyLocation = projectDir.resolve("build/pitest/history")
+
+    configure<PitestPluginExtension> {
+      targetClasses.add("eu.aylett.*")
+
+      junit5PluginVersion =
+          internal.dependencies
+              .find { it.group == "org.pitest" && it.name == "pitest-junit5-plugin" }!!
+              .version
+      verbosity = "NO_SPINNER"
+      pitestVersion =
+          internal.dependencies.find { it.group == "org.pitest" && it.name == "pitest" }!!.version
+      failWhenNoMutations = false
+      mutators = listOf("STRONGER", "EXTENDED")
+      timeoutFactor = BigDecimal.TEN
+
+      exportLineCoverage = true
+      features.add("+auto_threads")
+      if (isCI) {
+        // Running in GitHub Actions
+        features.addAll("+git(from[HEAD~1])", "+gitci(level[warning])")
+        outputFormats = listOf("html", "xml", "gitci")
+        failWhenNoMutations = false
+      } else {
+        historyInputLocation = historyLocation
+        historyOutputLocation = historyLocation
+        features.addAll("-gitci")
+        outputFormats = listOf("html", "xml")
+        failWhenNoMutations = true
+      }
+
+      jvmArgs.add("--add-opens=java.base/java.lang=ALL-UNNAMED")
+    }
   }
+}
 
-  jvmArgs.addAll(
-      "--add-opens=java.base/java.lang=ALL-UNNAMED",
-      "-javaagent:${mockitoRuntimeOnly.asPath}",
-  )
+tasks.named("prepareKotlinBuildScriptModel").configure {
+  mustRunAfter(tasks.named("spotlessKotlinGradleCheck"))
 }
 
+pitest { jvmArgs.add("-javaagent:${mockitoRuntimeOnly.asPath}") }
+
 val pitestReportLocation: Provider<Directory> = project.layout.buildDirectory.dir("reports/pitest")
 
 val printPitestReportLocation by
@@ -5,4 +5,7 @@ plugins {
 
 rootProject.name = "throttle"
 
+include("throttle-micrometer")
+include("throttle-opentelemetry")
+
 enableFeaturePreview("STABLE_CONFIGURATION_CACHE")
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Benchmarks for the ways of making an attempt through a single, shared
+ * throttle.
+ * <p>
+ * Each benchmark runs at 1, 4, 16 and 64 threads, using the nested subclasses.
+ * Run with {@code ./gradlew jmh}; the {@code gc} profiler reports
+ * {@code gc.alloc.rate.norm}, the bytes allocated per attempt.
+ * </p>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class ThrottleBenchmark {
+  private static final Object RESULT = new Object();
+  private static final DeliberateFailure FAILURE = new DeliberateFailure();
+  // An exact window keeps an entry for every attempt, so at millions of
+  // attempts a second a full minute would grow to tens of millions of entries
+  // and end up measuring the garbage collector. The other windows keep their
+  // default of a minute, as in production.
+  private static final Duration EXACT_WINDOW_LENGTH = Duration.ofMillis(100);
+
+  /**
+   * How often the protected calls fail.
+   */
+  public enum Workload {
+    /**
+     * Every call succeeds, so the throttle never rejects anything.
+     */
+    SUCCEEDING(0.0),
+    /**
+     * Half the calls fail, so the throttle lets everything through.
+     */
+    MIXED(0.5),
+    /**
+     * Almost every call fails, so the throttle rejects most attempts.
+     */
+    FAILING(0.95);
+
+    final double failureRate;
+
+    Workload(double failureRate) {
+      this.failureRate = failureRate;
+    }
+  }
+
+  /**
+   * A throttle shared by every benchmark thread, protecting calls that fail at
+   * the workload's rate.
+   */
+  @State(Scope.Benchmark)
+  public static class Attempts {
+    @Param
+    public WindowType windowType;
+
+    @Param
+    public Workload workload;
+
+    Throttle throttle;
+    Callable<Object> callable;
+    Runnable runnable;
+    Function<Object, Object> function;
+
+    @Setup
+    public void setUp() {
+      var builder = Throttle.builder().window(windowType);
+      if (windowType == WindowType.EXACT) {
+        builder.windowLength(EXACT_WINDOW_LENGTH);
+      }
+      throttle = builder.build();
+      var failureRate = workload.failureRate;
+      callable = () -> call(failureRate);
+      runnable = () -> call(failureRate);
+      function = throttle.wrap((Object input) -> call(failureRate));
+    }
+  }
+
+  /**
+   * A throttle that rejects every attempt.
+   */
+  @State(Scope.Benchmark)
+  public static class Rejections {
+    @Param({"false", "true"})
+    public boolean rejectionStackTraces;
+
+    Throttle throttle;
+
+    @Setup
+    public void setUp() {
+      throttle = Throttle.builder()
+          .overhead(1.0)
+          .window(WindowType.BUCKETED)
+          .randomSource(() -> 1.0)
+          .rejectionStackTraces(rejectionStackTraces)
+          .build();
+      try {
+        throttle.attempt(() -> {
+          throw FAILURE;
+        });
+      } catch (DeliberateFailure expected) {
+        // Every attempt after the first failure will be rejected
+      }
+    }
+  }
+
+  @Benchmark
+  public Object checkedAttempt(Attempts attempts) throws Exception {
+    try {
+      return attempts.throttle.checkedAttempt(attempts.callable);
+    } catch (ThrottleException | DeliberateFailure e) {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public Object attemptRunnable(Attempts attempts) {
+    try {
+      attempts.throttle.attempt(attempts.runnable);
+      return RESULT;
+    } catch (ThrottleException | DeliberateFailure e) {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public Object wrapFunction(Attempts attempts) {
+    try {
+      return attempts.function.apply(RESULT);
+    } catch (ThrottleException | DeliberateFailure e) {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public Object rejection(Rejections rejections) {
+    try {
+      return rejections.throttle.attempt(() -> RESULT);
+    } catch (ThrottleException e) {
+      return e;
+    }
+  }
+
+  private static Object call(double failureRate) {
+    if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+      throw FAILURE;
+    }
+    return RESULT;
+  }
+
+  /**
+   * A preallocated failure, so that we measure the throttle rather than the cost
+   * of creating exceptions.
+   */
+  static final class DeliberateFailure extends RuntimeException {
+    DeliberateFailure() {
+      super("Deliberate failure", null, false, false);
+    }
+  }
+
+  /**
+   * The benchmarks, run on a single thread.
+   */
+  @Threads(1)
+  public static class OneThread extends ThrottleBenchmark {
+  }
+
+  /**
+   * The benchmarks, run on four threads.
+   */
+  @Threads(4)
+  public static class FourThreads extends ThrottleBenchmark {
+  }
+
+  /**
+   * The benchmarks, run on sixteen threads.
+   */
+  @Threads(16)
+  public static class SixteenThreads extends ThrottleBenchmark {
+  }
+
+  /**
+   * The benchmarks, run on sixty-four threads.
+   */
+  @Threads(64)
+  public static class SixtyFourThreads extends ThrottleBenchmark {
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A window that counts attempts in a fixed ring of time buckets.
+ * <p>
+ * Each bucket covers an equal slice of the window. When time moves on, the
+ * buckets that have fallen out of the window are cleared and reused, so memory
+ * use depends only on the number of buckets and expiry is a rotation rather
+ * than a walk over individual attempts. An attempt stays in the window for
+ * between {@code buckets - 1} and {@code buckets} bucket widths.
+ * </p>
+ * <p>
+ * No locks are taken. Each bucket counts into striped {@link LongAdder}s, and
+ * is claimed for a new time slice with a compare-and-set on its epoch. The
+ * totals of the buckets before the current one are recalculated once per
+ * rotation, by whichever thread first notices that time has moved on. Counts
+ * are only ever added to, so they can never go negative; an attempt that races
+ * with a rotation may be counted in a newer bucket than the one it started in.
+ * </p>
+ */
+final class BucketedWindow implements Window {
+  /**
+   * The epoch of a bucket that's never been used.
+   */
+  private static final long UNUSED = Long.MIN_VALUE;
+  /**
+   * The epoch of a bucket that's being cleared for reuse.
+   */
+  private static final long CLAIMING = Long.MIN_VALUE + 1;
+
+  private final Ticker ticker;
+  private final long bucketNanos;
+  private final Bucket[] buckets;
+  private final AtomicReference<Totals> totals = new AtomicReference<>(new Totals(UNUSED, 0, 0));
+  private final AtomicLong latestEpoch = new AtomicLong(UNUSED);
+
+  BucketedWindow(Ticker ticker, Duration window, int buckets) {
+    if (buckets < 1) {
+      throw new IllegalArgumentException("Must have at least one bucket");
+    }
+    this.bucketNanos = window.toNanos() / buckets;
+    if (bucketNanos < 1) {
+      throw new IllegalArgumentException("Window must be at least one nanosecond per bucket");
+    }
+    this.ticker = ticker;
+    this.buckets = new Bucket[buckets];
+    for (var i = 0; i < buckets; i++) {
+      this.buckets[i] = new Bucket();
+    }
+  }
+
+  @Override
+  public void expire() {
+    var epoch = currentEpoch();
+    var previous = totals.get();
+    if (epoch <= previous.epoch) {
+      // Time hasn't moved on, or it's gone backwards: keep using the current bucket
+      return;
+    }
+
+    var successes = 0L;
+    var failures = 0L;
+    for (var bucket : buckets) {
+      var bucketEpoch = bucket.epoch.get();
+      if (bucketEpoch < epoch && bucketEpoch > epoch - buckets.length) {
+        successes += bucket.successes.sum();
+        failures += bucket.failures.sum();
+      }
+    }
+    // If we lose, someone else has already totalled up this epoch or a later one
+    totals.compareAndSet(previous, new Totals(epoch, successes, failures));
+  }
+
+  @Override
+  public double successes() {
+    var current = totals.get();
+    var bucket = bucketFor(current.epoch);
+    var live = bucket.epoch.get() == current.epoch ? bucket.successes.sum() : 0;
+    return current.successes + live;
+  }
+
+  @Override
+  public double failures() {
+    var current = totals.get();
+    var bucket = bucketFor(current.epoch);
+    var live = bucket.epoch.get() == current.epoch ? bucket.failures.sum() : 0;
+    return current.failures + live;
+  }
+
+  @Override
+  public Counts peek() {
+    var epoch = currentEpoch();
+    if (epoch <= totals.get().epoch) {
+      return new Counts(successes(), failures());
+    }
+    var successes = 0L;
+    var failures = 0L;
+    for (var bucket : buckets) {
+      var bucketEpoch = bucket.epoch.get();
+      if (bucketEpoch <= epoch && bucketEpoch > epoch - buckets.length) {
+        successes += bucket.successes.sum();
+        failures += bucket.failures.sum();
+      }
+    }
+    return new Counts(successes, failures);
+  }
+
+  @Override
+  public void record(boolean success) {
+    var bucket = currentBucket();
+    if (success) {
+      bucket.successes.increment();
+    } else {
+      bucket.failures.increment();
+    }
+  }
+
+  @Override
+  public void record(long successes, long failures) {
+    var bucket = currentBucket();
+    if (successes > 0) {
+      bucket.successes.add(successes);
+    }
+    if (failures > 0) {
+      bucket.failures.add(failures);
+    }
+  }
+
+  @Override
+  public void clear() {
+    for (var bucket : buckets) {
+      var bucketEpoch = bucket.epoch.get();
+      while (bucketEpoch == CLAIMING || !bucket.epoch.compareAndSet(bucketEpoch, CLAIMING)) {
+        // Someone else is clearing the bucket, which won't take long
+        Thread.onSpinWait();
+        bucketEpoch = bucket.epoch.get();
+      }
+      bucket.successes.reset();
+      bucket.failures.reset();
+      bucket.epoch.set(UNUSED);
+    }
+    // A fresh totals record, so that an expiry that raced with us can't replace it
+    totals.updateAndGet(current -> new Totals(current.epoch, 0, 0));
+  }
+
+  /**
+   * Find the bucket to record into, clearing it first if it was last used for an
+   * earlier time slice.
+   */
+  private Bucket currentBucket() {
+    var epoch = currentEpoch();
+    var bucket = bucketFor(epoch);
+    var bucketEpoch = bucket.epoch.get();
+    while (bucketEpoch < epoch) {
+      if (bucketEpoch != CLAIMING && bucket.epoch.compareAndSet(bucketEpoch, CLAIMING)) {
+        bucket.successes.reset();
+        bucket.failures.reset();
+        bucket.epoch.set(epoch);
+        break;
+      }
+      // Someone else is clearing the bucket, which won't take long
+      Thread.onSpinWait();
+      bucketEpoch = bucket.epoch.get();
+    }
+    return bucket;
+  }
+
+  /**
+   * The epoch of the current time slice, which never goes backwards even if the
+   * clock does, so that attempts are never recorded into an older bucket.
+   */
+  private long currentEpoch() {
+    var epoch = Math.floorDiv(ticker.read(), bucketNanos);
+    var latest = latestEpoch.get();
+    while (epoch > latest) {
+      // Only contended once per bucket width, by the threads that notice time
+      // has moved on
+      if (latestEpoch.compareAndSet(latest, epoch)) {
+        return epoch;
+      }
+      latest = latestEpoch.get();
+    }
+    return latest;
+  }
+
+  private Bucket bucketFor(long epoch) {
+    return buckets[Math.floorMod(epoch, buckets.length)];
+  }
+
+  private static final class Bucket {
+    final AtomicLong epoch = new AtomicLong(UNUSED);
+    final LongAdder successes = new LongAdder();
+    final LongAdder failures = new LongAdder();
+  }
+
+  private record Totals(long epoch, long successes, long failures) {
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import java.time.Duration;
+
+/**
+ * A window that weights attempts by how long ago they happened.
+ * <p>
+ * Rather than expiring attempts, the counts decay exponentially: an attempt
+ * counts for one when it's recorded, a half after one half-life, a quarter
+ * after two, and so on. The whole window is two counts and a timestamp, and
+ * bringing it up to date is a single multiplication.
+ * </p>
+ * <p>
+ * Updates take the window's lock. The counts are also published in volatile
+ * fields after each update, so reading them doesn't wait for an update.
+ * </p>
+ */
+final class DecayingWindow implements Window {
+  private final Ticker ticker;
+  private final double decayPerNano;
+  private double successes;
+  private double failures;
+  private volatile double publishedSuccesses;
+  private volatile double publishedFailures;
+  private long lastUpdate;
+
+  DecayingWindow(Ticker ticker, Duration halfLife) {
+    if (halfLife.isNegative() || halfLife.isZero()) {
+      throw new IllegalArgumentException("Half-life must be positive");
+    }
+    this.ticker = ticker;
+    this.decayPerNano = Math.log(2) / halfLife.toNanos();
+  }
+
+  @Override
+  public synchronized void expire() {
+    decay();
+    publish();
+  }
+
+  @Override
+  public double successes() {
+    return publishedSuccesses;
+  }
+
+  @Override
+  public double failures() {
+    return publishedFailures;
+  }
+
+  @Override
+  public synchronized Counts peek() {
+    var elapsed = ticker.read() - lastUpdate;
+    if (elapsed <= 0) {
+      return new Counts(successes, failures);
+    }
+    var factor = Math.exp(-decayPerNano * elapsed);
+    return new Counts(successes * factor, failures * factor);
+  }
+
+  @Override
+  public synchronized void record(boolean success) {
+    decay();
+    if (success) {
+      successes++;
+    } else {
+      failures++;
+    }
+    publish();
+  }
+
+  @Override
+  public synchronized void record(long successes, long failures) {
+    decay();
+    this.successes += successes;
+    this.failures += failures;
+    publish();
+  }
+
+  @Override
+  public synchronized void clear() {
+    successes = 0;
+    failures = 0;
+    publish();
+  }
+
+  /**
+   * Make the counts visible to readers that don't take the lock.
+   */
+  private void publish() {
+    publishedSuccesses = successes;
+    publishedFailures = failures;
+  }
+
+  private void decay() {
+    var now = ticker.read();
+    if (successes == 0 && failures == 0) {
+      // Nothing to decay, so start counting from now
+      lastUpdate = now;
+      return;
+    }
+    if (now - lastUpdate <= 0) {
+      // Time hasn't moved on, or it's gone backwards
+      return;
+    }
+    var factor = Math.exp(-decayPerNano * (now - lastUpdate));
+    successes *= factor;
+    failures *= factor;
+    lastUpdate = now;
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import java.time.Duration;
+
+/**
+ * A window that keeps an entry for every attempt, expiring each one exactly
+ * when it leaves the window.
+ * <p>
+ * Entries live in a ring of primitive longs, in the order they were recorded.
+ * Each entry packs the time of the attempt, relative to when the window was
+ * created, with the outcome in the lowest bit. As entries are recorded in time
+ * order, expiry just advances the head of the ring past the entries that are
+ * too old. The ring doubles in size when it fills up, and halves when it's
+ * mostly empty.
+ * </p>
+ * <p>
+ * Updates take the window's lock. The counts are also published in volatile
+ * fields after each update, so reading them doesn't wait for an update.
+ * </p>
+ */
+final class ExactWindow implements Window {
+  private static final int INITIAL_CAPACITY = 16;
+  private static final long SUCCESS = 1L;
+
+  private final Ticker ticker;
+  private final long windowNanos;
+  private final long origin;
+  private long[] entries = new long[INITIAL_CAPACITY];
+  private int head;
+  private int size;
+  private long latest;
+  private long successes;
+  private long failures;
+  private volatile long publishedSuccesses;
+  private volatile long publishedFailures;
+
+  ExactWindow(Ticker ticker, Duration window) {
+    this.ticker = ticker;
+    this.windowNanos = window.toNanos();
+    this.origin = ticker.read();
+  }
+
+  @Override
+  public synchronized void expire() {
+    var cutoff = ticker.read() - origin - windowNanos;
+    var mask = entries.length - 1;
+    while (size > 0) {
+      var entry = entries[head];
+      if ((entry >> 1) > cutoff) {
+        break;
+      }
+      if ((entry & SUCCESS) != 0) {
+        successes--;
+      } else {
+        failures--;
+      }
+      head = (head + 1) & mask;
+      size--;
+    }
+
+    // Should hold by construction.
+    assert successes >= 0;
+    assert failures >= 0;
+    assert successes + failures == size;
+
+    if (entries.length > INITIAL_CAPACITY && size <= entries.length / 4) {
+      resize(entries.length / 2);
+    }
+    publish();
+  }
+
+  @Override
+  public double successes() {
+    return publishedSuccesses;
+  }
+
+  @Override
+  public double failures() {
+    return publishedFailures;
+  }
+
+  @Override
+  public synchronized Counts peek() {
+    var cutoff = ticker.read() - origin - windowNanos;
+    var mask = entries.length - 1;
+    var liveSuccesses = successes;
+    var liveFailures = failures;
+    for (var i = 0; i < size; i++) {
+      var entry = entries[(head + i) & mask];
+      if ((entry >> 1) > cutoff) {
+        break;
+      }
+      if ((entry & SUCCESS) != 0) {
+        liveSuccesses--;
+      } else {
+        liveFailures--;
+      }
+    }
+    return new Counts(liveSuccesses, liveFailures);
+  }
+
+  @Override
+  public synchronized void record(boolean success) {
+    // Keep the entries in order, even if the clock goes backwards
+    latest = Math.max(latest, ticker.read() - origin);
+    if (size == entries.length) {
+      resize(entries.length * 2);
+    }
+    entries[(head + size) & (entries.length - 1)] = (latest << 1) | (success ? SUCCESS : 0);
+    size++;
+    if (success) {
+      successes++;
+    } else {
+      failures++;
+    }
+    publish();
+  }
+
+  @Override
+  public synchronized void record(long successes, long failures) {
+    latest = Math.max(latest, ticker.read() - origin);
+    var count = successes + failures;
+    var capacity = entries.length;
+    while (capacity - size < count) {
+      capacity *= 2;
+    }
+    if (capacity != entries.length) {
+      resize(capacity);
+    }
+    var mask = entries.length - 1;
+    var entry = latest << 1;
+    for (var i = 0L; i < count; i++) {
+      entries[(int) ((head + size + i) & mask)] = entry | (i < successes ? SUCCESS : 0);
+    }
+    size += (int) count;
+    this.successes += successes;
+    this.failures += failures;
+    publish();
+  }
+
+  @Override
+  public synchronized void clear() {
+    entries = new long[INITIAL_CAPACITY];
+    head = 0;
+    size = 0;
+    successes = 0;
+    failures = 0;
+    publish();
+  }
+
+  /**
+   * Make the counts visible to readers that don't take the lock.
+   */
+  private void publish() {
+    publishedSuccesses = successes;
+    publishedFailures = failures;
+  }
+
+  /**
+   * Copy the live entries into a new ring, starting from its first slot.
+   */
+  private void resize(int capacity) {
+    var resized = new long[capacity];
+    var firstPart = Math.min(size, entries.length - head);
+    System.arraycopy(entries, head, resized, 0, firstPart);
+    System.arraycopy(entries, 0, resized, firstPart, size - firstPart);
+    entries = resized;
+    head = 0;
+  }
+}
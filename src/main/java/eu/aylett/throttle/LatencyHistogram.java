@@ -0,0 +1,195 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The latencies of a throttle's recent attempts, for percentile queries.
+ * <p>
+ * Latencies are counted in log-linear buckets, as in HdrHistogram: each power
+ * of two is split into 32 equal sub-buckets, so a reported latency is within
+ * about 3% of the true value. Latencies of up to 2<sup>40</sup> nanoseconds,
+ * about 18 minutes, are distinguished, and longer ones are counted as that.
+ * </p>
+ * <p>
+ * Like a {@link WindowType#BUCKETED} window, the histogram keeps a fixed ring
+ * of time slices, each covering a quarter of the throttle's window, so memory
+ * use is fixed and a latency counts for between three and four quarters of the
+ * window. No locks are taken: slices are claimed for a new time slice with a
+ * compare-and-set on their epoch, and counts are atomic increments.
+ * </p>
+ */
+public final class LatencyHistogram {
+  private static final int SLICES = 4;
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int MAX_VALUE_BITS = 40;
+  private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+  private static final int BUCKETS = index(MAX_VALUE) + 1;
+  /**
+   * The epoch of a slice that's never been used.
+   */
+  private static final long UNUSED = Long.MIN_VALUE;
+  /**
+   * The epoch of a slice that's being cleared for reuse.
+   */
+  private static final long CLAIMING = Long.MIN_VALUE + 1;
+
+  private final Ticker ticker;
+  private final long sliceNanos;
+  private final Slice[] slices = new Slice[SLICES];
+
+  LatencyHistogram(Ticker ticker, Duration window) {
+    this.ticker = ticker;
+    this.sliceNanos = Math.max(1, window.toNanos() / SLICES);
+    for (var i = 0; i < SLICES; i++) {
+      slices[i] = new Slice();
+    }
+  }
+
+  /**
+   * How many latencies are in the window.
+   */
+  public long count() {
+    return count(currentEpoch());
+  }
+
+  private long count(long epoch) {
+    var count = 0L;
+    for (var slice : slices) {
+      if (live(slice, epoch)) {
+        count += slice.count.get();
+      }
+    }
+    return count;
+  }
+
+  /**
+   * The latency that the given percentage of the attempts in the window took no
+   * longer than, such as 99.0 for the 99th percentile.
+   * <p>
+   * Reports the highest latency counted in the same bucket, so it's never an
+   * underestimate.
+   * </p>
+   *
+   * @param percentile
+   *          between 0 and 100
+   * @return the latency, or zero if there are no latencies in the window
+   */
+  public Duration percentile(double percentile) {
+    if (!(percentile >= 0.0 && percentile <= 100.0)) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100");
+    }
+    var epoch = currentEpoch();
+    var total = count(epoch);
+    if (total == 0) {
+      return Duration.ZERO;
+    }
+    var rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+    var seen = 0L;
+    var highest = -1;
+    for (var index = 0; index < BUCKETS; index++) {
+      var before = seen;
+      for (var slice : slices) {
+        if (live(slice, epoch)) {
+          seen += slice.counts.get(index);
+        }
+      }
+      if (seen >= rank) {
+        return Duration.ofNanos(highestValue(index));
+      }
+      if (seen > before) {
+        highest = index;
+      }
+    }
+    // A slice was cleared for reuse after we totalled it up, so the latencies
+    // we saw fell short of the rank: the highest of them is the best answer
+    return highest < 0 ? Duration.ZERO : Duration.ofNanos(highestValue(highest));
+  }
+
+  void record(long nanos) {
+    record(nanos, 1);
+  }
+
+  void record(long nanos, int count) {
+    if (count <= 0) {
+      return;
+    }
+    var slice = currentSlice();
+    slice.counts.addAndGet(index(Math.min(Math.max(nanos, 0), MAX_VALUE)), count);
+    slice.count.addAndGet(count);
+  }
+
+  /**
+   * Find the slice to record into, clearing it first if it was last used for an
+   * earlier time slice.
+   */
+  private Slice currentSlice() {
+    var epoch = currentEpoch();
+    var slice = slices[Math.floorMod(epoch, SLICES)];
+    var sliceEpoch = slice.epoch.get();
+    while (sliceEpoch < epoch) {
+      if (sliceEpoch != CLAIMING && slice.epoch.compareAndSet(sliceEpoch, CLAIMING)) {
+        for (var i = 0; i < BUCKETS; i++) {
+          slice.counts.set(i, 0);
+        }
+        slice.count.set(0);
+        slice.epoch.set(epoch);
+        break;
+      }
+      // Someone else is clearing the slice, which won't take long
+      Thread.onSpinWait();
+      sliceEpoch = slice.epoch.get();
+    }
+    return slice;
+  }
+
+  private long currentEpoch() {
+    return Math.floorDiv(ticker.read(), sliceNanos);
+  }
+
+  private static boolean live(Slice slice, long epoch) {
+    var sliceEpoch = slice.epoch.get();
+    return sliceEpoch <= epoch && sliceEpoch > epoch - SLICES;
+  }
+
+  /**
+   * The bucket for a latency: the first 64 buckets count single nanoseconds,
+   * then each power of two from 64 up gets 32 more.
+   */
+  static int index(long nanos) {
+    var shift = Math.max(0, 64 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS);
+    return (shift << (SUB_BUCKET_BITS - 1)) + (int) (nanos >>> shift);
+  }
+
+  /**
+   * The highest latency counted in a bucket.
+   */
+  static long highestValue(int index) {
+    var shift = Math.max(0, (index >> (SUB_BUCKET_BITS - 1)) - 1);
+    var subBucket = index - (shift << (SUB_BUCKET_BITS - 1));
+    return (((long) subBucket + 1) << shift) - 1;
+  }
+
+  private static final class Slice {
+    final AtomicLong epoch = new AtomicLong(UNUSED);
+    final AtomicLong count = new AtomicLong();
+    final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  }
+}
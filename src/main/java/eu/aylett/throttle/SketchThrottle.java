@@ -0,0 +1,261 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A throttle per key, for more keys than it's practical to keep a
+ * {@link Throttle} for each.
+ * <p>
+ * Each key is let through or rejected by the same rule as a {@link Throttle},
+ * but its successes and failures are counted in count-min sketches rather than
+ * in a window of its own. The window is a ring of time buckets, as for
+ * {@link WindowType#BUCKETED}, each holding a sketch of successes and failures.
+ * Memory use is fixed by the configuration, at
+ * {@code 16 * buckets * depth * width} bytes, however many keys there are.
+ * Each decision reads a pair of counters per bucket per row, so sketches are
+ * best used with tens of buckets rather than hundreds.
+ * </p>
+ * <p>
+ * Keys share counters, so a key's counts may be overestimated by up to the
+ * configured error, as a proportion of all the attempts in the window, with
+ * the configured confidence. Keys with plenty of traffic of their own are
+ * barely affected; rarely-used keys may be throttled a little more or less
+ * than they would be with a throttle of their own. Keys are told apart by
+ * their {@link Object#hashCode()}.
+ * </p>
+ * <p>
+ * No locks are taken.
+ * </p>
+ *
+ * @param <K>
+ *          the type of key identifying each fault zone
+ * @see Throttle.Builder#buildSketch(double, double)
+ */
+public final class SketchThrottle<K> {
+  private static final long UNUSED = Long.MIN_VALUE;
+  private static final long CLAIMING = Long.MIN_VALUE + 1;
+
+  private final double overhead;
+  private final Ticker ticker;
+  private final long bucketNanos;
+  private final DoubleSupplier randomSource;
+  private final boolean rejectionStackTraces;
+  private final int depth;
+  private final int widthMask;
+  private final Bucket[] buckets;
+  private final AtomicLong latestEpoch = new AtomicLong(UNUSED);
+
+  SketchThrottle(double overhead, Ticker ticker, Duration window, int buckets, DoubleSupplier randomSource,
+      boolean rejectionStackTraces, double error, double confidence) {
+    if (overhead < 1.0) {
+      throw new IllegalArgumentException("Overhead must be at least 1.0");
+    }
+    if (!(error > 0.0 && error < 1.0)) {
+      throw new IllegalArgumentException("Error must be between 0 and 1");
+    }
+    if (!(confidence > 0.0 && confidence < 1.0)) {
+      throw new IllegalArgumentException("Confidence must be between 0 and 1");
+    }
+    this.bucketNanos = window.toNanos() / buckets;
+    if (bucketNanos < 1) {
+      throw new IllegalArgumentException("Window must be at least one nanosecond per bucket");
+    }
+    this.overhead = overhead;
+    this.ticker = ticker;
+    this.randomSource = randomSource;
+    this.rejectionStackTraces = rejectionStackTraces;
+    // The usual count-min sizing, with the width rounded up to a power of two
+    this.depth = (int) Math.ceil(Math.log(1 / (1 - confidence)));
+    var width = Integer.highestOneBit((int) Math.ceil(Math.E / error) - 1) << 1;
+    this.widthMask = width - 1;
+    this.buckets = new Bucket[buckets];
+    for (var i = 0; i < buckets; i++) {
+      this.buckets[i] = new Bucket(2 * depth * width);
+    }
+  }
+
+  /**
+   * Either call the callable, or throw a ThrottleException if the throttle limit
+   * for the key is exceeded.
+   *
+   * @throws ThrottleException
+   *           if the throttle limit is exceeded, or any exception thrown by the
+   *           callable.
+   */
+  public <T> T checkedAttempt(K key, Callable<T> callable) throws Exception {
+    var hash = spread(key.hashCode());
+    admit(hash);
+    var success = false;
+    try {
+      var result = callable.call();
+      success = true;
+      return result;
+    } finally {
+      record(hash, success);
+    }
+  }
+
+  /**
+   * Call the runnable, or throw a ThrottleException if the throttle limit for
+   * the key is exceeded.
+   *
+   * @throws ThrottleException
+   *           if the throttle limit is exceeded, or any exception thrown by the
+   *           runnable.
+   */
+  public void attempt(K key, Runnable runnable) {
+    var hash = spread(key.hashCode());
+    admit(hash);
+    var success = false;
+    try {
+      runnable.run();
+      success = true;
+    } finally {
+      record(hash, success);
+    }
+  }
+
+  /**
+   * Call the supplier, or throw a ThrottleException if the throttle limit for
+   * the key is exceeded.
+   *
+   * @throws ThrottleException
+   *           if the throttle limit is exceeded, or any exception thrown by the
+   *           supplier.
+   */
+  public <T> T attempt(K key, Supplier<T> supplier) {
+    var hash = spread(key.hashCode());
+    admit(hash);
+    var success = false;
+    try {
+      var result = supplier.get();
+      success = true;
+      return result;
+    } finally {
+      record(hash, success);
+    }
+  }
+
+  /**
+   * Decide whether to let an attempt through, recording a failure and throwing if
+   * not.
+   */
+  private void admit(long hash) {
+    var epoch = currentEpoch();
+    var successes = Long.MAX_VALUE;
+    var failures = Long.MAX_VALUE;
+    for (var row = 0; row < depth; row++) {
+      var cell = cell(hash, row);
+      var rowSuccesses = 0L;
+      var rowFailures = 0L;
+      for (var bucket : buckets) {
+        var bucketEpoch = bucket.epoch.get();
+        if (bucketEpoch <= epoch && bucketEpoch > epoch - buckets.length) {
+          rowSuccesses += bucket.counts.get(cell);
+          rowFailures += bucket.counts.get(cell + 1);
+        }
+      }
+      successes = Math.min(successes, rowSuccesses);
+      failures = Math.min(failures, rowFailures);
+    }
+
+    if (failures > 0) {
+      // The same rule as Throttle, applied to this key's estimated counts
+      var ratio = overhead * ((overhead + successes) / (double) (successes + failures));
+      if (ratio <= 1.0 && randomSource.getAsDouble() >= ratio) {
+        record(hash, false);
+        throw new ThrottleException("Throttle limit exceeded", successes, failures, ratio, rejectionStackTraces);
+      }
+    }
+  }
+
+  private void record(long hash, boolean success) {
+    var bucket = claim(currentEpoch());
+    var offset = success ? 0 : 1;
+    for (var row = 0; row < depth; row++) {
+      bucket.counts.getAndIncrement(cell(hash, row) + offset);
+    }
+  }
+
+  private long currentEpoch() {
+    var epoch = Math.floorDiv(ticker.read(), bucketNanos);
+    var latest = latestEpoch.get();
+    if (epoch > latest) {
+      latestEpoch.accumulateAndGet(epoch, Math::max);
+      return epoch;
+    }
+    // Time has gone backwards: keep using the latest bucket
+    return latest;
+  }
+
+  /**
+   * Find the bucket for an epoch, clearing it first if it was last used for an
+   * earlier time slice.
+   */
+  private Bucket claim(long epoch) {
+    var bucket = buckets[(int) Math.floorMod(epoch, (long) buckets.length)];
+    var bucketEpoch = bucket.epoch.get();
+    while (bucketEpoch < epoch) {
+      if (bucketEpoch != CLAIMING && bucket.epoch.compareAndSet(bucketEpoch, CLAIMING)) {
+        for (var i = 0; i < bucket.counts.length(); i++) {
+          bucket.counts.set(i, 0);
+        }
+        bucket.epoch.set(epoch);
+        break;
+      }
+      // Someone else is clearing the bucket
+      Thread.onSpinWait();
+      bucketEpoch = bucket.epoch.get();
+    }
+    return bucket;
+  }
+
+  /**
+   * The index of the success counter for a key in a row; the failure counter is
+   * next to it.
+   */
+  private int cell(long hash, int row) {
+    // Derive each row's hash from two halves of one, as Kirsch and Mitzenmacher
+    // show is as good as independent hashes
+    var rowHash = (int) hash + row * ((int) (hash >>> 32) | 1);
+    return 2 * (row * (widthMask + 1) + (rowHash & widthMask));
+  }
+
+  private static long spread(int hashCode) {
+    // The finaliser from SplitMix64, to spread similar hash codes over every bit
+    var z = hashCode * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  private static final class Bucket {
+    final AtomicLong epoch = new AtomicLong(UNUSED);
+    final AtomicLongArray counts;
+
+    Bucket(int size) {
+      this.counts = new AtomicLongArray(size);
+    }
+  }
+}
@@ -16,35 +16,113 @@
 
 package eu.aylett.throttle;
 
-import java.security.SecureRandom;
-import java.time.Clock;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
 import java.time.InstantSource;
 import java.util.concurrent.Callable;
-import java.util.concurrent.DelayQueue;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiFunction;
+import java.util.function.DoubleFunction;
 import java.util.function.DoubleSupplier;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
 import java.util.function.Supplier;
-
-import static eu.aylett.throttle.SneakyThrows.sneakyThrow;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 /**
  * A simple throttle that allows you to call a method, but only if the throttle
  * limit is not exceeded.
  */
 public final class Throttle {
-  private final double overhead;
-  private final InstantSource clock;
+  /**
+   * The start time of an attempt that isn't being timed.
+   */
+  private static final long NOT_TIMED = Long.MIN_VALUE;
+
+  private volatile double overhead;
   private final DoubleSupplier randomSource;
-  private final DelayQueue<ThrottleEntry> queue = new DelayQueue<>();
-  private final AtomicLong successes = new AtomicLong(0);
-  private final AtomicLong failures = new AtomicLong(0);
+  private final Window window;
+  private final boolean rejectionStackTraces;
+  private final Permit permit;
+  private final LongAdder admittedTotal = new LongAdder();
+  private final LongAdder rejectedTotal = new LongAdder();
+  private final LongAdder succeededTotal = new LongAdder();
+  private final LongAdder failedTotal = new LongAdder();
+  private final Ticker ticker;
+  private final ThrottleListener listener;
+  private final boolean listening;
+  private final @Nullable String name;
+  private final @Nullable LatencyHistogram latencies;
+  private final boolean timing;
 
   /**
-   * A fully configurable throttle.
+   * A throttle with a choice of window.
    * <p>
-   * You probably don't need to call this constructor directly.
+   * You probably don't need to call this constructor directly: see
+   * {@link #builder()}.
+   * </p>
+   *
+   * @param overhead
+   *          the ratio of attempts to successes; higher values allow more
+   *          attempts per success
+   * @param windowType
+   *          how to keep track of attempts over the past minute
+   * @param clock
+   *          the time source used for expiring old entries (mainly for testing)
+   * @param randomSource
+   *          the random number generator used to probabilistically throttle
+   *          attempts (mainly for testing)
+   */
+  public Throttle(double overhead, WindowType windowType, InstantSource clock, DoubleSupplier randomSource) {
+    this(builder().overhead(overhead).window(windowType).ticker(Ticker.of(clock)).randomSource(randomSource));
+  }
+
+  /**
+   * A throttle that weights attempts by how recently they happened.
+   * <p>
+   * You probably don't need to call this constructor directly: see
+   * {@link #builder()}.
+   * </p>
+   *
+   * @param overhead
+   *          the ratio of attempts to successes; higher values allow more
+   *          attempts per success
+   * @param halfLife
+   *          how long it takes for an attempt to count half as much as when it
+   *          was recorded; shorter half-lives react to changes more quickly
+   * @param clock
+   *          the time source used for decaying old attempts (mainly for testing)
+   * @param randomSource
+   *          the random number generator used to probabilistically throttle
+   *          attempts (mainly for testing)
+   * @see WindowType#DECAYING
+   */
+  public Throttle(double overhead, Duration halfLife, InstantSource clock, DoubleSupplier randomSource) {
+    this(builder().overhead(overhead)
+        .window(WindowType.DECAYING)
+        .halfLife(halfLife)
+        .ticker(Ticker.of(clock))
+        .randomSource(randomSource));
+  }
+
+  /**
+   * A throttle that tracks every attempt exactly.
+   * <p>
+   * You probably don't need to call this constructor directly: see
+   * {@link #builder()}.
    * </p>
    *
    * @param overhead
@@ -57,20 +135,49 @@ public final class Throttle {
    *          attempts (mainly for testing)
    */
   public Throttle(double overhead, InstantSource clock, DoubleSupplier randomSource) {
-    if (overhead < 1.0) {
+    this(overhead, WindowType.EXACT, clock, randomSource);
+  }
+
+  /**
+   * Throttle with a default overhead of 2.0, using the system's monotonic clock
+   * and a thread-local random number generator.
+   * <p>
+   * The random numbers only decide which attempts to let through, so they don't
+   * need to be unpredictable, but they do need to be cheap and to not contend
+   * between threads.
+   * </p>
+   */
+  public Throttle() {
+    this(builder());
+  }
+
+  private Throttle(Builder builder) {
+    if (builder.overhead < 1.0) {
       throw new IllegalArgumentException("Overhead must be at least 1.0");
     }
-    this.overhead = overhead;
-    this.clock = clock;
-    this.randomSource = randomSource;
+    this.overhead = builder.overhead;
+    this.window = builder.window();
+    this.randomSource = builder.randomSource;
+    this.rejectionStackTraces = builder.rejectionStackTraces;
+    this.ticker = builder.ticker;
+    this.listener = builder.listener;
+    this.listening = listener != ThrottleListener.NOOP;
+    this.name = builder.name;
+    this.latencies = builder.latencyHistogram ? new LatencyHistogram(ticker, builder.windowLength) : null;
+    this.timing = listening || latencies != null;
+    this.permit = new Permit(window, listener, name, admittedTotal, succeededTotal, failedTotal);
+    ThrottleEvents.register(this);
   }
 
   /**
-   * Throttle with a default overhead of 2.0, using the system clock and a secure
-   * random number generator.
+   * Start configuring a throttle.
+   * <p>
+   * Unless configured otherwise, the throttle has an overhead of 2.0 and
+   * tracks every attempt over the past minute exactly, like {@link #Throttle()}.
+   * </p>
    */
-  public Throttle() {
-    this(2.0, Clock.systemUTC(), new SecureRandom()::nextDouble);
+  public static Builder builder() {
+    return new Builder();
   }
 
   /**
@@ -82,57 +189,14 @@ public final class Throttle {
    *           callable.
    */
   public <T> T checkedAttempt(Callable<T> callable) throws Exception {
-    ThrottleEntry old;
-    T result;
-    var deltaSuccesses = 0L;
-    var deltaFailures = 0L;
-    while ((old = queue.poll()) != null) {
-      if (old.success) {
-        deltaSuccesses--;
-      } else {
-        deltaFailures--;
-      }
-    }
-
-    // We always update the counts after polling the queue and before adding to it
-    // so that the count will always be no less than the number of entries in the
-    // queue
-    var instantaneousFailures = failures.addAndGet(deltaFailures);
-    var instantaneousSuccesses = successes.addAndGet(deltaSuccesses);
-
-    // Should hold by construction.
-    assert instantaneousFailures >= 0;
-    assert instantaneousSuccesses >= 0;
-
+    var start = begin();
     var success = false;
     try {
-      if (instantaneousFailures > 0) {
-        // We want a non-zero chance of running, even if we've not seen any successes
-        // for a while
-        var ratio = overhead * ((overhead + instantaneousSuccesses) / (instantaneousSuccesses + instantaneousFailures));
-        if (ratio <= 1.0) {
-          var sample = randomSource.getAsDouble();
-          if (sample >= ratio) {
-            // Counts as a failure, because we want to let through a proportion of total
-            // attempts including throttles
-            // to let through twice the successes seen.
-            throw new ThrottleException("Throttle limit exceeded", instantaneousSuccesses, instantaneousFailures,
-                ratio);
-          }
-        }
-      }
-      result = callable.call();
-
+      var result = callable.call();
       success = true;
-      successes.getAndIncrement();
-      queue.offer(new ThrottleEntry(true, clock));
-
       return result;
     } finally {
-      if (!success) {
-        failures.getAndIncrement();
-        queue.offer(new ThrottleEntry(false, clock));
-      }
+      complete(start, success);
     }
   }
 
@@ -145,13 +209,13 @@ public final class Throttle {
    *           runnable.
    */
   public void attempt(Runnable runnable) {
+    var start = begin();
+    var success = false;
     try {
-      checkedAttempt(() -> {
-        runnable.run();
-        return null;
-      });
-    } catch (Exception e) {
-      throw sneakyThrow(e);
+      runnable.run();
+      success = true;
+    } finally {
+      complete(start, success);
     }
   }
 
@@ -164,11 +228,335 @@ public final class Throttle {
    *           supplier.
    */
   public <T> T attempt(Supplier<T> supplier) {
+    var start = begin();
+    var success = false;
+    try {
+      var result = supplier.get();
+      success = true;
+      return result;
+    } finally {
+      complete(start, success);
+    }
+  }
+
+  /**
+   * Call the supplier, or throw a ThrottleException if the throttle limit is
+   * exceeded, without boxing the result.
+   * <p>
+   * This has its own name, rather than overloading {@link #attempt(Supplier)},
+   * so that lambdas which only throw aren't ambiguous.
+   * </p>
+   *
+   * @throws ThrottleException
+   *           if the throttle limit is exceeded, or any exception thrown by the
+   *           supplier.
+   */
+  public int attemptAsInt(IntSupplier supplier) {
+    var start = begin();
+    var success = false;
+    try {
+      var result = supplier.getAsInt();
+      success = true;
+      return result;
+    } finally {
+      complete(start, success);
+    }
+  }
+
+  /**
+   * Call the supplier, or throw a ThrottleException if the throttle limit is
+   * exceeded, without boxing the result.
+   *
+   * @throws ThrottleException
+   *           if the throttle limit is exceeded, or any exception thrown by the
+   *           supplier.
+   */
+  public long attemptAsLong(LongSupplier supplier) {
+    var start = begin();
+    var success = false;
+    try {
+      var result = supplier.getAsLong();
+      success = true;
+      return result;
+    } finally {
+      complete(start, success);
+    }
+  }
+
+  /**
+   * Call the supplier, or throw a ThrottleException if the throttle limit is
+   * exceeded, without boxing the result.
+   *
+   * @throws ThrottleException
+   *           if the throttle limit is exceeded, or any exception thrown by the
+   *           supplier.
+   */
+  public double attemptAsDouble(DoubleSupplier supplier) {
+    var start = begin();
+    var success = false;
+    try {
+      var result = supplier.getAsDouble();
+      success = true;
+      return result;
+    } finally {
+      complete(start, success);
+    }
+  }
+
+  /**
+   * Start an asynchronous call, or return a failed stage if the throttle limit is
+   * exceeded.
+   * <p>
+   * The decision to let the call through is made immediately. The outcome is
+   * recorded when the stage returned by the supplier completes: normal
+   * completion counts as a success, and exceptional completion (including
+   * cancellation) as a failure. No thread is blocked waiting for the call.
+   * </p>
+   *
+   * @return a stage that completes once the call's outcome has been recorded,
+   *         with the same result as the call; or a stage that has already
+   *         failed with a {@link ThrottleException}, or with any exception the
+   *         supplier throws.
+   */
+  public <T> CompletionStage<T> attemptAsync(Supplier<? extends CompletionStage<T>> supplier) {
+    try {
+      admit();
+    } catch (ThrottleException e) {
+      return CompletableFuture.failedStage(e);
+    }
+
+    var start = startTime();
+    CompletionStage<T> stage;
     try {
-      return checkedAttempt(supplier::get);
-    } catch (Exception e) {
-      throw sneakyThrow(e);
+      stage = supplier.get();
+    } catch (RuntimeException e) {
+      complete(start, false);
+      return CompletableFuture.failedStage(e);
+    } catch (Error e) {
+      complete(start, false);
+      throw e;
+    }
+    return stage.whenComplete((result, failure) -> complete(start, failure == null));
+  }
+
+  /**
+   * Ask to make an attempt, for call sites where the attempt can't be wrapped in
+   * a lambda.
+   * <p>
+   * Attempts are let through or rejected just as for
+   * {@link #checkedAttempt(Callable)}, and a rejection counts as a failure. If
+   * the attempt is let through, the caller must record its outcome exactly once
+   * using the returned permit, whichever thread it finishes on.
+   * </p>
+   *
+   * @return a permit to make the attempt, or {@code null} if the throttle limit
+   *         is exceeded.
+   */
+  public @Nullable Permit tryAcquire() {
+    window.expire();
+    var successes = window.successes();
+    var failures = window.failures();
+    var ratio = admissionRatio(successes, failures);
+    if (!admitted(ratio)) {
+      reject(successes, failures, ratio);
+      return null;
+    }
+    accept(ratio);
+    return permit;
+  }
+
+  /**
+   * Ask to make an attempt, throwing if the throttle limit is exceeded, for
+   * decorators that need to report the rejection themselves.
+   *
+   * @throws ThrottleException
+   *           if the throttle limit is exceeded.
+   */
+  Permit acquire() {
+    admit();
+    return permit;
+  }
+
+  /**
+   * The throttle's current state, for dashboards and for choosing between
+   * instances of a dependency.
+   * <p>
+   * Taking a snapshot doesn't count as an attempt. It doesn't change the window
+   * or draw a random number, so it has no effect on the throttle's decisions.
+   * </p>
+   */
+  public Snapshot snapshot() {
+    var counts = window.peek();
+    return snapshot(counts.successes(), counts.failures());
+  }
+
+  /**
+   * The throttle's state as of its last decision, for metrics that are read
+   * often.
+   * <p>
+   * Unlike {@link #snapshot()}, this never takes a lock that attempts need. The
+   * window's counts are those its last expiry left, plus the outcomes recorded
+   * since, so they may include attempts that have just left the window: a
+   * throttle that sees no attempts keeps reporting the window it last decided
+   * on.
+   * </p>
+   */
+  public Snapshot recentSnapshot() {
+    return snapshot(window.successes(), window.failures());
+  }
+
+  private Snapshot snapshot(double successes, double failures) {
+    var ratio = admissionRatio(successes, failures);
+    return new Snapshot(successes, failures, Math.min(ratio, 1.0), admittedTotal.sum(), rejectedTotal.sum(),
+        succeededTotal.sum(), failedTotal.sum());
+  }
+
+  /**
+   * How many attempts have been let through since the throttle was created.
+   * <p>
+   * Unlike {@link #snapshot()}, reading one of the lifetime totals doesn't look
+   * at the window, so it never waits for an attempt being recorded.
+   * </p>
+   */
+  public long admitted() {
+    return admittedTotal.sum();
+  }
+
+  /**
+   * How many attempts have been rejected since the throttle was created.
+   */
+  public long rejected() {
+    return rejectedTotal.sum();
+  }
+
+  /**
+   * How many of the attempts let through have succeeded since the throttle was
+   * created.
+   */
+  public long succeeded() {
+    return succeededTotal.sum();
+  }
+
+  /**
+   * How many of the attempts let through have failed since the throttle was
+   * created, not counting rejections.
+   */
+  public long failed() {
+    return failedTotal.sum();
+  }
+
+  /**
+   * The name the throttle was built with, if any.
+   */
+  public @Nullable String name() {
+    return name;
+  }
+
+  /**
+   * The latencies of the attempts let through over roughly the past window, if
+   * the throttle was built to record them.
+   * <p>
+   * Only attempts made through the throttle's attempt and wrap methods, and
+   * batches, are timed: the throttle doesn't know when a permit's attempt
+   * started.
+   * </p>
+   *
+   * @see Builder#latencyHistogram(boolean)
+   */
+  public @Nullable LatencyHistogram latencies() {
+    return latencies;
+  }
+
+  /**
+   * The ratio of attempts to successes.
+   */
+  double overhead() {
+    return overhead;
+  }
+
+  /**
+   * Change the ratio of attempts to successes, taking effect from the next
+   * attempt, such as to loosen a throttle that's shedding too much during an
+   * incident.
+   *
+   * @throws IllegalArgumentException
+   *           if the overhead is less than 1.0
+   */
+  void overhead(double overhead) {
+    if (overhead < 1.0) {
+      throw new IllegalArgumentException("Overhead must be at least 1.0");
     }
+    this.overhead = overhead;
+  }
+
+  /**
+   * Forget every attempt in the window, so the throttle lets everything through
+   * until it sees failures again. The lifetime totals are kept.
+   */
+  void clearWindow() {
+    window.clear();
+  }
+
+  /**
+   * Whether the window holds less than one attempt's worth of history, in which
+   * case the throttle would let every attempt through just as a new one would.
+   */
+  boolean isIdle() {
+    window.expire();
+    return window.successes() + window.failures() < 1.0;
+  }
+
+  /**
+   * Ask to make a batch of attempts at once, such as when fanning a request out
+   * to many calls to the same dependency.
+   * <p>
+   * The whole batch is decided against one view of the window, with a single
+   * random draw: the proportion of the batch that's let through is the
+   * proportion that {@link #tryAcquire()} would let through, rounded up or down
+   * at random. The attempts that aren't let through count as failures, recorded
+   * in one update. The caller must record the outcomes of the admitted attempts
+   * using the returned batch.
+   * </p>
+   *
+   * @param attempts
+   *          how many attempts to ask for
+   * @return the batch, saying how many of the attempts may be made
+   */
+  public Batch tryAcquire(int attempts) {
+    if (attempts < 0) {
+      throw new IllegalArgumentException("Must ask for a non-negative number of attempts");
+    }
+    window.expire();
+    var successes = window.successes();
+    var failures = window.failures();
+    var ratio = admissionRatio(successes, failures);
+    var admitted = attempts;
+    if (ratio <= 1.0) {
+      var expected = attempts * ratio;
+      var whole = Math.floor(expected);
+      admitted = (int) whole + (randomSource.getAsDouble() < expected - whole ? 1 : 0);
+    }
+    if (admitted < attempts) {
+      window.record(0, attempts - admitted);
+      rejectedTotal.add(attempts - admitted);
+    }
+    admittedTotal.add(admitted);
+    var admitProbability = Math.min(ratio, 1.0);
+    if (listening) {
+      for (var i = 0; i < attempts; i++) {
+        if (i < admitted) {
+          listener.admitted(admitProbability);
+        } else {
+          listener.rejected(admitProbability);
+        }
+      }
+    }
+    if (admitted < attempts && ThrottleEvents.recordingRejections()) {
+      for (var i = admitted; i < attempts; i++) {
+        ThrottleEvents.rejected(name, successes, failures, admitProbability);
+      }
+    }
+    return new Batch(this, admitted, startTime());
   }
 
   /**
@@ -194,13 +582,765 @@ public final class Throttle {
    * Wrap a Function so that when it's called, it may be throttled.
    */
   public <T, R> Function<T, R> wrap(Function<T, R> function) {
-    return (T t) -> attempt(() -> function.apply(t));
+    return (T t) -> {
+      var start = begin();
+      var success = false;
+      try {
+        var result = function.apply(t);
+        success = true;
+        return result;
+      } finally {
+        complete(start, success);
+      }
+    };
   }
 
   /**
    * Wrap a BiFunction so that when it's called, it may be throttled.
    */
   public <T, U, R> BiFunction<T, U, R> wrap(BiFunction<T, U, R> function) {
-    return (T t, U u) -> attempt(() -> function.apply(t, u));
+    return (T t, U u) -> {
+      var start = begin();
+      var success = false;
+      try {
+        var result = function.apply(t, u);
+        success = true;
+        return result;
+      } finally {
+        complete(start, success);
+      }
+    };
+  }
+
+  /**
+   * Wrap an IntSupplier so that when it's called, it may be throttled, without
+   * boxing the result.
+   * <p>
+   * The primitive wrappers have their own names, rather than overloading
+   * {@code wrap}, so that a lambda passed to {@link #wrap(Supplier)} or
+   * {@link #wrap(Function)} is never ambiguous and never quietly picks a
+   * primitive interface.
+   * </p>
+   */
+  public IntSupplier wrapAsInt(IntSupplier supplier) {
+    return () -> attemptAsInt(supplier);
+  }
+
+  /**
+   * Wrap a LongSupplier so that when it's called, it may be throttled, without
+   * boxing the result.
+   */
+  public LongSupplier wrapAsLong(LongSupplier supplier) {
+    return () -> attemptAsLong(supplier);
+  }
+
+  /**
+   * Wrap a DoubleSupplier so that when it's called, it may be throttled, without
+   * boxing the result.
+   */
+  public DoubleSupplier wrapAsDouble(DoubleSupplier supplier) {
+    return () -> attemptAsDouble(supplier);
+  }
+
+  /**
+   * Wrap a ToIntFunction so that when it's called, it may be throttled, without
+   * boxing the result.
+   */
+  public <T> ToIntFunction<T> wrapToInt(ToIntFunction<T> function) {
+    return (T t) -> {
+      var start = begin();
+      var success = false;
+      try {
+        var result = function.applyAsInt(t);
+        success = true;
+        return result;
+      } finally {
+        complete(start, success);
+      }
+    };
+  }
+
+  /**
+   * Wrap a ToLongFunction so that when it's called, it may be throttled, without
+   * boxing the result.
+   */
+  public <T> ToLongFunction<T> wrapToLong(ToLongFunction<T> function) {
+    return (T t) -> {
+      var start = begin();
+      var success = false;
+      try {
+        var result = function.applyAsLong(t);
+        success = true;
+        return result;
+      } finally {
+        complete(start, success);
+      }
+    };
+  }
+
+  /**
+   * Wrap a ToDoubleFunction so that when it's called, it may be throttled,
+   * without boxing the result.
+   */
+  public <T> ToDoubleFunction<T> wrapToDouble(ToDoubleFunction<T> function) {
+    return (T t) -> {
+      var start = begin();
+      var success = false;
+      try {
+        var result = function.applyAsDouble(t);
+        success = true;
+        return result;
+      } finally {
+        complete(start, success);
+      }
+    };
+  }
+
+  /**
+   * Wrap an IntFunction so that when it's called, it may be throttled, without
+   * boxing the argument.
+   */
+  public <R> IntFunction<R> wrapFromInt(IntFunction<R> function) {
+    return (int value) -> {
+      var start = begin();
+      var success = false;
+      try {
+        var result = function.apply(value);
+        success = true;
+        return result;
+      } finally {
+        complete(start, success);
+      }
+    };
+  }
+
+  /**
+   * Wrap a LongFunction so that when it's called, it may be throttled, without
+   * boxing the argument.
+   */
+  public <R> LongFunction<R> wrapFromLong(LongFunction<R> function) {
+    return (long value) -> {
+      var start = begin();
+      var success = false;
+      try {
+        var result = function.apply(value);
+        success = true;
+        return result;
+      } finally {
+        complete(start, success);
+      }
+    };
+  }
+
+  /**
+   * Wrap a DoubleFunction so that when it's called, it may be throttled, without
+   * boxing the argument.
+   */
+  public <R> DoubleFunction<R> wrapFromDouble(DoubleFunction<R> function) {
+    return (double value) -> {
+      var start = begin();
+      var success = false;
+      try {
+        var result = function.apply(value);
+        success = true;
+        return result;
+      } finally {
+        complete(start, success);
+      }
+    };
+  }
+
+  /**
+   * Wrap an IntUnaryOperator so that when it's called, it may be throttled,
+   * without boxing the operand or the result.
+   */
+  public IntUnaryOperator wrapIntOperator(IntUnaryOperator operator) {
+    return (int operand) -> {
+      var start = begin();
+      var success = false;
+      try {
+        var result = operator.applyAsInt(operand);
+        success = true;
+        return result;
+      } finally {
+        complete(start, success);
+      }
+    };
+  }
+
+  /**
+   * Wrap a LongUnaryOperator so that when it's called, it may be throttled,
+   * without boxing the operand or the result.
+   */
+  public LongUnaryOperator wrapLongOperator(LongUnaryOperator operator) {
+    return (long operand) -> {
+      var start = begin();
+      var success = false;
+      try {
+        var result = operator.applyAsLong(operand);
+        success = true;
+        return result;
+      } finally {
+        complete(start, success);
+      }
+    };
+  }
+
+  /**
+   * Wrap a DoubleUnaryOperator so that when it's called, it may be throttled,
+   * without boxing the operand or the result.
+   */
+  public DoubleUnaryOperator wrapDoubleOperator(DoubleUnaryOperator operator) {
+    return (double operand) -> {
+      var start = begin();
+      var success = false;
+      try {
+        var result = operator.applyAsDouble(operand);
+        success = true;
+        return result;
+      } finally {
+        complete(start, success);
+      }
+    };
+  }
+
+  /**
+   * Decide whether to let an attempt through, recording a failure and throwing if
+   * not.
+   * <p>
+   * Callers that are let through must record the outcome of their attempt.
+   * </p>
+   */
+  private void admit() {
+    window.expire();
+    var instantaneousFailures = window.failures();
+    var instantaneousSuccesses = window.successes();
+
+    var ratio = admissionRatio(instantaneousSuccesses, instantaneousFailures);
+    if (!admitted(ratio)) {
+      // Counts as a failure, because we want to let through a proportion of total
+      // attempts including throttles
+      // to let through twice the successes seen.
+      reject(instantaneousSuccesses, instantaneousFailures, ratio);
+      throw new ThrottleException("Throttle limit exceeded", Math.round(instantaneousSuccesses),
+          Math.round(instantaneousFailures), ratio, rejectionStackTraces);
+    }
+    accept(ratio);
+  }
+
+  private void accept(double ratio) {
+    admittedTotal.increment();
+    if (listening) {
+      listener.admitted(Math.min(ratio, 1.0));
+    }
+  }
+
+  private void reject(double successes, double failures, double ratio) {
+    window.record(false);
+    rejectedTotal.increment();
+    if (listening) {
+      listener.rejected(Math.min(ratio, 1.0));
+    }
+    ThrottleEvents.rejected(name, successes, failures, Math.min(ratio, 1.0));
+  }
+
+  /**
+   * Decide whether to let an attempt through, and if so when it started.
+   * <p>
+   * Every attempt and wrapper calls this, makes its call, and then passes the
+   * start to {@link #complete(long, boolean)}. The wrappers that take arguments
+   * make the call themselves, rather than through {@link #attempt(Supplier)},
+   * so that they don't allocate a lambda capturing the arguments on each call.
+   * </p>
+   */
+  private long begin() {
+    admit();
+    return startTime();
+  }
+
+  /**
+   * When an attempt started, if anyone's interested in how long it takes.
+   */
+  private long startTime() {
+    return timing || ThrottleEvents.recordingAttempts() ? ticker.read() : NOT_TIMED;
+  }
+
+  /**
+   * Record the outcome of an attempt that was let through.
+   */
+  private void complete(long start, boolean success) {
+    window.record(success);
+    (success ? succeededTotal : failedTotal).increment();
+    if (start != NOT_TIMED) {
+      var nanos = ticker.read() - start;
+      if (latencies != null) {
+        latencies.record(nanos);
+      }
+      if (listening) {
+        notifyOutcome(listener, success, nanos);
+      }
+      ThrottleEvents.completed(name, success, nanos);
+    }
+  }
+
+  private static void notifyOutcome(ThrottleListener listener, boolean success, long nanos) {
+    if (success) {
+      listener.succeeded(nanos);
+    } else {
+      listener.failed(nanos);
+    }
+  }
+
+  /**
+   * The proportion of attempts to let through, given the attempts in the window.
+   * May be greater than one, in which case everything is let through.
+   */
+  private double admissionRatio(double successes, double failures) {
+    if (failures > 0) {
+      // We want a non-zero chance of running, even if we've not seen any successes
+      // for a while
+      var overhead = this.overhead;
+      return overhead * ((overhead + successes) / (successes + failures));
+    }
+    return Double.POSITIVE_INFINITY;
+  }
+
+  private boolean admitted(double ratio) {
+    return ratio > 1.0 || randomSource.getAsDouble() < ratio;
+  }
+
+  private static double randomDouble() {
+    return ThreadLocalRandom.current().nextDouble();
+  }
+
+  /**
+   * Permission to make one attempt, from {@link #tryAcquire()}.
+   * <p>
+   * Permits carry no state of their own, so a throttle hands out the same permit
+   * each time, and acquiring one doesn't allocate. It's up to the caller to
+   * record each attempt's outcome exactly once.
+   * </p>
+   */
+  public static final class Permit {
+    private final Window window;
+    private final ThrottleListener listener;
+    private final @Nullable String name;
+    private final LongAdder admittedTotal;
+    private final LongAdder succeededTotal;
+    private final LongAdder failedTotal;
+
+    private Permit(Window window, ThrottleListener listener, @Nullable String name, LongAdder admittedTotal,
+        LongAdder succeededTotal, LongAdder failedTotal) {
+      this.window = window;
+      this.listener = listener;
+      this.name = name;
+      this.admittedTotal = admittedTotal;
+      this.succeededTotal = succeededTotal;
+      this.failedTotal = failedTotal;
+    }
+
+    /**
+     * Record that the attempt succeeded.
+     * <p>
+     * As the permit doesn't know when the attempt started, listeners are told
+     * that its latency is {@link ThrottleListener#UNKNOWN_LATENCY}.
+     * </p>
+     */
+    public void recordSuccess() {
+      record(true);
+    }
+
+    /**
+     * Record that the attempt failed.
+     */
+    public void recordFailure() {
+      record(false);
+    }
+
+    /**
+     * Give the permit back without recording an outcome, as though the attempt
+     * had never been let through, for when it couldn't even be started for a
+     * reason that says nothing about the dependency.
+     * <p>
+     * Letting the attempt through didn't touch the window, so this only takes
+     * it off the admitted total. Listeners have already been told it was let
+     * through.
+     * </p>
+     */
+    void release() {
+      admittedTotal.decrement();
+    }
+
+    private void record(boolean success) {
+      window.record(success);
+      (success ? succeededTotal : failedTotal).increment();
+      if (listener != ThrottleListener.NOOP) {
+        notifyOutcome(listener, success, ThrottleListener.UNKNOWN_LATENCY);
+      }
+      ThrottleEvents.completed(name, success, ThrottleListener.UNKNOWN_LATENCY);
+    }
+  }
+
+  /**
+   * Permission to make some of a batch of attempts, from
+   * {@link #tryAcquire(int)}.
+   */
+  public static final class Batch {
+    private final Throttle throttle;
+    private final int admitted;
+    private final long start;
+    private final AtomicInteger recorded = new AtomicInteger();
+
+    private Batch(Throttle throttle, int admitted, long start) {
+      this.throttle = throttle;
+      this.admitted = admitted;
+      this.start = start;
+    }
+
+    /**
+     * How many of the attempts may be made.
+     */
+    public int admitted() {
+      return admitted;
+    }
+
+    /**
+     * Record the outcomes of the admitted attempts, in one update.
+     * <p>
+     * Outcomes may be recorded in several calls, for instance as the attempts
+     * finish, but never for more attempts than were admitted in total.
+     * </p>
+     *
+     * @throws IllegalArgumentException
+     *           if either count is negative, or if the outcomes, with those
+     *           already recorded, would be for more than the admitted attempts
+     */
+    public void record(int successes, int failures) {
+      if (successes < 0 || failures < 0) {
+        throw new IllegalArgumentException("Outcomes must not be negative");
+      }
+      int previous;
+      do {
+        previous = recorded.get();
+        if ((long) previous + successes + failures > admitted) {
+          throw new IllegalArgumentException(
+              "Outcomes must be for at most the " + admitted + " admitted attempts, " + previous + " already recorded");
+        }
+      } while (!recorded.compareAndSet(previous, previous + successes + failures));
+      throttle.window.record(successes, failures);
+      throttle.succeededTotal.add(successes);
+      throttle.failedTotal.add(failures);
+      if (start != NOT_TIMED) {
+        // Every attempt in the batch took as long as the batch as a whole
+        var nanos = throttle.ticker.read() - start;
+        if (throttle.latencies != null) {
+          throttle.latencies.record(nanos, successes + failures);
+        }
+        for (var i = 0; i < successes + failures; i++) {
+          if (throttle.listening) {
+            notifyOutcome(throttle.listener, i < successes, nanos);
+          }
+          ThrottleEvents.completed(throttle.name, i < successes, nanos);
+        }
+      }
+    }
+  }
+
+  /**
+   * A throttle's state at one moment, from {@link #snapshot()}.
+   *
+   * @param successes
+   *          the successful attempts in the window
+   * @param failures
+   *          the failed attempts in the window, including rejections
+   * @param admitProbability
+   *          the probability that the next attempt will be let through
+   * @param admitted
+   *          how many attempts have been let through since the throttle was
+   *          created
+   * @param rejected
+   *          how many attempts have been rejected since the throttle was
+   *          created
+   * @param succeeded
+   *          how many of the attempts let through have succeeded since the
+   *          throttle was created
+   * @param failed
+   *          how many of the attempts let through have failed since the
+   *          throttle was created, not counting rejections
+   */
+  public record Snapshot(double successes, double failures, double admitProbability, long admitted,
+      long rejected, long succeeded, long failed) {
+  }
+
+  /**
+   * Configuration for a {@link Throttle}.
+   * <p>
+   * A short window reacts quickly when a dependency starts or stops failing; a
+   * long one smooths out bursts. Exact windows cost memory in proportion to the
+   * request rate, while bucketed and decaying windows use a fixed amount.
+   * </p>
+   */
+  public static final class Builder {
+    private static final Duration ONE_MINUTE = Duration.ofMinutes(1);
+    private static final int DEFAULT_BUCKETS = 60;
+
+    private double overhead = 2.0;
+    private WindowType windowType = WindowType.EXACT;
+    private Duration windowLength = ONE_MINUTE;
+    private int buckets = DEFAULT_BUCKETS;
+    private @Nullable Duration halfLife;
+    private Ticker ticker = Ticker.system();
+    private DoubleSupplier randomSource = Throttle::randomDouble;
+    private boolean rejectionStackTraces = true;
+    private ThrottleListener listener = ThrottleListener.NOOP;
+    private @Nullable String name;
+    private boolean latencyHistogram;
+
+    private Builder() {
+    }
+
+    /**
+     * The ratio of attempts to successes; higher values allow more attempts per
+     * success.
+     * <p>
+     * Must be at least 1.0. Defaults to 2.0.
+     * </p>
+     */
+    public Builder overhead(double overhead) {
+      this.overhead = overhead;
+      return this;
+    }
+
+    /**
+     * How to keep track of attempts. Defaults to {@link WindowType#EXACT}.
+     */
+    public Builder window(WindowType windowType) {
+      this.windowType = windowType;
+      return this;
+    }
+
+    /**
+     * How long attempts count towards the throttle's decisions. Defaults to one
+     * minute.
+     * <p>
+     * For a decaying window, this sets the default half-life.
+     * </p>
+     */
+    public Builder windowLength(Duration windowLength) {
+      if (windowLength.isNegative() || windowLength.isZero()) {
+        throw new IllegalArgumentException("Window length must be positive");
+      }
+      this.windowLength = windowLength;
+      return this;
+    }
+
+    /**
+     * How many buckets to split a bucketed window into. Defaults to 60.
+     * <p>
+     * More buckets expire attempts closer to the end of the window, at the cost
+     * of a little memory and a little more work each time a bucket expires.
+     * </p>
+     */
+    public Builder buckets(int buckets) {
+      if (buckets < 1) {
+        throw new IllegalArgumentException("Must have at least one bucket");
+      }
+      this.buckets = buckets;
+      return this;
+    }
+
+    /**
+     * How long it takes for an attempt to count half as much in a decaying
+     * window.
+     * <p>
+     * Defaults to the window length multiplied by ln 2, which gives each attempt
+     * the same total weight as a fixed window of that length does.
+     * </p>
+     */
+    public Builder halfLife(Duration halfLife) {
+      if (halfLife.isNegative() || halfLife.isZero()) {
+        throw new IllegalArgumentException("Half-life must be positive");
+      }
+      this.halfLife = halfLife;
+      return this;
+    }
+
+    /**
+     * The time source used for expiring old attempts. Defaults to
+     * {@link Ticker#system()}.
+     */
+    public Builder ticker(Ticker ticker) {
+      this.ticker = ticker;
+      return this;
+    }
+
+    /**
+     * The random number generator used to probabilistically throttle attempts,
+     * returning values in {@code [0, 1)}.
+     * <p>
+     * Defaults to a thread-local random number generator. Mainly useful for
+     * testing.
+     * </p>
+     */
+    public Builder randomSource(DoubleSupplier randomSource) {
+      this.randomSource = randomSource;
+      return this;
+    }
+
+    /**
+     * Whether a {@link ThrottleException} should capture a stack trace when the
+     * throttle rejects an attempt.
+     * <p>
+     * Defaults to true. The trace only ever points into the throttle, and
+     * capturing it is by far the most expensive part of rejecting an attempt,
+     * so turning it off makes rejection much cheaper when nothing reads it.
+     * </p>
+     */
+    public Builder rejectionStackTraces(boolean rejectionStackTraces) {
+      this.rejectionStackTraces = rejectionStackTraces;
+      return this;
+    }
+
+    /**
+     * Who to tell about the throttle's decisions, and the outcomes of the
+     * attempts it lets through. Defaults to {@link ThrottleListener#NOOP}.
+     * <p>
+     * Without a listener, the throttle doesn't even read the clock to time
+     * attempts.
+     * </p>
+     */
+    public Builder listener(ThrottleListener listener) {
+      this.listener = listener;
+      return this;
+    }
+
+    /**
+     * A name for the throttle, such as the dependency it protects, to identify
+     * it in Java Flight Recorder events. Defaults to none.
+     */
+    public Builder name(String name) {
+      this.name = name;
+      return this;
+    }
+
+    /**
+     * Whether to keep a histogram of how long the attempts the throttle lets
+     * through take, for percentile queries using {@link Throttle#latencies()}.
+     * Defaults to false.
+     * <p>
+     * The histogram covers roughly the window length, and takes about 36 KiB
+     * per throttle.
+     * </p>
+     */
+    public Builder latencyHistogram(boolean latencyHistogram) {
+      this.latencyHistogram = latencyHistogram;
+      return this;
+    }
+
+    /**
+     * Create a throttle with this configuration.
+     *
+     * @throws IllegalArgumentException
+     *           if the overhead is less than 1.0, or the window is too short to
+     *           split into the configured number of buckets
+     */
+    public Throttle build() {
+      return new Throttle(this);
+    }
+
+    /**
+     * Create a registry of throttles with this configuration, one per key.
+     * <p>
+     * Later changes to this builder don't affect the registry.
+     * </p>
+     *
+     * @param idleTimeout
+     *          how long a throttle's window must have been empty before the
+     *          throttle is dropped from the registry
+     * @throws IllegalArgumentException
+     *           if the idle timeout isn't positive, or if the configuration
+     *           isn't valid
+     */
+    public <K> ThrottleRegistry<K> buildRegistry(Duration idleTimeout) {
+      return buildRegistry(idleTimeout, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Create a registry of throttles with this configuration, one per key,
+     * holding at most a maximum number of throttles.
+     * <p>
+     * Later changes to this builder don't affect the registry.
+     * </p>
+     *
+     * @param idleTimeout
+     *          how long a throttle's window must have been empty before the
+     *          throttle is dropped from the registry
+     * @param maximumSize
+     *          how many throttles the registry should hold; a lookup that
+     *          would take it past this drops another throttle whose window is
+     *          empty to make room, if it finds one
+     * @throws IllegalArgumentException
+     *           if the idle timeout isn't positive, if the maximum size is less
+     *           than one, or if the configuration isn't valid
+     */
+    public <K> ThrottleRegistry<K> buildRegistry(Duration idleTimeout, int maximumSize) {
+      var config = copy();
+      // Fail now, rather than on the first lookup
+      config.build();
+      return new ThrottleRegistry<>(config::build, overhead, ticker, idleTimeout, maximumSize);
+    }
+
+    /**
+     * Create a throttle per key, sharing count-min sketches between all the keys
+     * rather than keeping a window for each.
+     * <p>
+     * The sketches are split into time buckets as for
+     * {@link WindowType#BUCKETED}, whichever window type is configured. The
+     * overhead, window length, number of buckets, ticker, random source and
+     * rejection stack traces are all used as configured.
+     * </p>
+     *
+     * @param error
+     *          how far a key's counts may be overestimated, as a proportion of
+     *          all the attempts in the window; each sketch row is
+     *          {@code e / error} counters wide, rounded up to a power of two
+     * @param confidence
+     *          the probability that a key's counts are within the error; there
+     *          are {@code ln(1 / (1 - confidence))} rows
+     * @throws IllegalArgumentException
+     *           if the error or confidence isn't between 0 and 1, or if the
+     *           configuration isn't valid
+     * @see SketchThrottle
+     */
+    public <K> SketchThrottle<K> buildSketch(double error, double confidence) {
+      return new SketchThrottle<>(overhead, ticker, windowLength, buckets, randomSource, rejectionStackTraces, error,
+          confidence);
+    }
+
+    private Builder copy() {
+      var copy = new Builder();
+      copy.overhead = overhead;
+      copy.windowType = windowType;
+      copy.windowLength = windowLength;
+      copy.buckets = buckets;
+      copy.halfLife = halfLife;
+      copy.ticker = ticker;
+      copy.randomSource = randomSource;
+      copy.rejectionStackTraces = rejectionStackTraces;
+      copy.listener = listener;
+      copy.name = name;
+      copy.latencyHistogram = latencyHistogram;
+      return copy;
+    }
+
+    private Window window() {
+      return switch (windowType) {
+        case EXACT -> new ExactWindow(ticker, windowLength);
+        case BUCKETED -> new BucketedWindow(ticker, windowLength, buckets);
+        case DECAYING -> new DecayingWindow(ticker, halfLife != null
+            ? halfLife
+            : Duration.ofNanos(Math.round(windowLength.toNanos() * Math.log(2))));
+      };
+    }
   }
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.jspecify.annotations.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Java Flight Recorder events for throttle decisions and window state.
+ * <p>
+ * Every event is disabled by default; enable them in a recording's settings,
+ * for example with {@code jfr configure +eu.aylett.throttle.Rejection#enabled=true}.
+ * While they're disabled, each costs only a check of whether it's enabled.
+ * </p>
+ * <p>
+ * The module only requires {@code jdk.jfr} statically, so the library also runs
+ * on images without it. Nothing here touches a JFR class unless the module is
+ * readable, and nothing but {@link FlightRecorder#isAvailable()} unless the JVM
+ * supports JFR too; without both, no events are recorded.
+ * </p>
+ */
+final class ThrottleEvents {
+  private static final boolean AVAILABLE = jfrReadable() && FlightRecorder.isAvailable();
+  /**
+   * Throttles to summarise, held weakly so that a throttle nobody else holds can
+   * be collected. Each registration first clears out those already collected.
+   */
+  private static final Set<Reference<Throttle>> THROTTLES = ConcurrentHashMap.newKeySet();
+  private static final ReferenceQueue<Throttle> COLLECTED = new ReferenceQueue<>();
+
+  static {
+    if (AVAILABLE) {
+      FlightRecorder.addPeriodicEvent(WindowEvent.class, ThrottleEvents::emitWindows);
+    }
+  }
+
+  private ThrottleEvents() {
+  }
+
+  private static boolean jfrReadable() {
+    var module = ThrottleEvents.class.getModule();
+    // On the class path, the library can read every module in the boot layer
+    var layer = module.isNamed() ? module.getLayer() : ModuleLayer.boot();
+    return Optional.ofNullable(layer)
+        .flatMap(l -> l.findModule("jdk.jfr"))
+        .map(module::canRead)
+        .orElse(false);
+  }
+
+  /**
+   * Include a throttle in the periodic window summaries, for as long as it's in
+   * use.
+   */
+  static void register(Throttle throttle) {
+    if (!AVAILABLE) {
+      return;
+    }
+    for (var collected = COLLECTED.poll(); collected != null; collected = COLLECTED.poll()) {
+      THROTTLES.remove(collected);
+    }
+    THROTTLES.add(new WeakReference<>(throttle, COLLECTED));
+  }
+
+  static boolean recordingRejections() {
+    return AVAILABLE && Types.REJECTION.isEnabled();
+  }
+
+  static boolean recordingAttempts() {
+    return AVAILABLE && Types.ATTEMPT.isEnabled();
+  }
+
+  static void rejected(@Nullable String name, double successes, double failures, double admitProbability) {
+    if (!recordingRejections()) {
+      return;
+    }
+    var event = new RejectionEvent();
+    event.throttle = name;
+    event.successes = successes;
+    event.failures = failures;
+    event.admitProbability = admitProbability;
+    event.commit();
+  }
+
+  static void completed(@Nullable String name, boolean success, long nanos) {
+    if (!recordingAttempts()) {
+      return;
+    }
+    var event = new AttemptEvent();
+    event.throttle = name;
+    event.success = success;
+    event.latency = nanos;
+    event.commit();
+  }
+
+  private static void emitWindows() {
+    for (var reference : THROTTLES) {
+      var throttle = reference.get();
+      if (throttle == null) {
+        continue;
+      }
+      var snapshot = throttle.snapshot();
+      var event = new WindowEvent();
+      event.throttle = throttle.name();
+      event.successes = snapshot.successes();
+      event.failures = snapshot.failures();
+      event.admitProbability = snapshot.admitProbability();
+      event.admitted = snapshot.admitted();
+      event.rejected = snapshot.rejected();
+      event.commit();
+    }
+  }
+
+  /**
+   * The event types, looked up once so that checking whether an event is
+   * enabled doesn't allocate the event. Only loaded once JFR is known to be
+   * readable and supported, as looking an event type up fails on a JVM built
+   * without JFR.
+   */
+  private static final class Types {
+    static final EventType REJECTION = EventType.getEventType(RejectionEvent.class);
+    static final EventType ATTEMPT = EventType.getEventType(AttemptEvent.class);
+  }
+
+  @Name("eu.aylett.throttle.Rejection")
+  @Label("Throttle Rejection")
+  @Description("A throttle rejected an attempt")
+  @Category("Throttle")
+  @Enabled(false)
+  @StackTrace(false)
+  static final class RejectionEvent extends Event {
+    @Label("Throttle")
+    @Nullable String throttle;
+
+    @Label("Successes")
+    @Description("Successful attempts in the window")
+    double successes;
+
+    @Label("Failures")
+    @Description("Failed attempts in the window, including rejections")
+    double failures;
+
+    @Label("Admit Probability")
+    double admitProbability;
+  }
+
+  @Name("eu.aylett.throttle.Attempt")
+  @Label("Throttled Attempt")
+  @Description("An attempt that a throttle let through has finished")
+  @Category("Throttle")
+  @Enabled(false)
+  @StackTrace(false)
+  static final class AttemptEvent extends Event {
+    @Label("Throttle")
+    @Nullable String throttle;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Latency")
+    @Description("How long the attempt took, or -1 if unknown")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+  }
+
+  @Name("eu.aylett.throttle.Window")
+  @Label("Throttle Window")
+  @Description("The state of a throttle's window")
+  @Category("Throttle")
+  @Enabled(false)
+  @StackTrace(false)
+  @Period("1 s")
+  static final class WindowEvent extends Event {
+    @Label("Throttle")
+    @Nullable String throttle;
+
+    @Label("Successes")
+    double successes;
+
+    @Label("Failures")
+    double failures;
+
+    @Label("Admit Probability")
+    double admitProbability;
+
+    @Label("Admitted")
+    @Description("Attempts let through since the throttle was created")
+    long admitted;
+
+    @Label("Rejected")
+    @Description("Attempts rejected since the throttle was created")
+    long rejected;
+  }
+}
@@ -24,6 +24,8 @@ package eu.aylett.throttle;
  * </p>
  */
 public class ThrottleException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
   /**
    * The number of successful attempts in the current window.
    */
@@ -37,6 +39,8 @@ public class ThrottleException extends RuntimeException {
    */
   public final double ratio;
 
+  private final String reason;
+
   /**
    * Constructs a new ThrottleException with details about the throttle state.
    *
@@ -50,9 +54,53 @@ public class ThrottleException extends RuntimeException {
    *          the allowed ratio at the time of exception
    */
   public ThrottleException(String message, long successes, long failures, double ratio) {
-    super(message + " (last 60s: " + successes + " successes, " + failures + " failures, allowed ratio " + ratio + ")");
+    super();
+    this.reason = message;
+    this.successes = successes;
+    this.failures = failures;
+    this.ratio = ratio;
+  }
+
+  /**
+   * Constructs a new ThrottleException, optionally without a stack trace.
+   * <p>
+   * Filling in a stack trace is by far the most expensive part of rejecting an
+   * attempt, and the trace only ever points into the throttle. Throttles built
+   * with {@link Throttle.Builder#rejectionStackTraces(boolean)} turned off
+   * create their exceptions without one.
+   * </p>
+   *
+   * @param message
+   *          the detail message
+   * @param successes
+   *          the number of successes in the current window
+   * @param failures
+   *          the number of failures in the current window
+   * @param ratio
+   *          the allowed ratio at the time of exception
+   * @param writableStackTrace
+   *          whether the exception should capture a stack trace (and allow
+   *          suppressed exceptions)
+   */
+  public ThrottleException(String message, long successes, long failures, double ratio,
+      boolean writableStackTrace) {
+    super(null, null, writableStackTrace, writableStackTrace);
+    this.reason = message;
     this.successes = successes;
     this.failures = failures;
     this.ratio = ratio;
   }
+
+  /**
+   * The detail message, including the state of the throttle.
+   * <p>
+   * The message is only formatted when it's asked for, so rejections that are
+   * caught and discarded never pay for it.
+   * </p>
+   */
+  @Override
+  public String getMessage() {
+    return reason + " (in window: " + successes + " successes, " + failures + " failures, allowed ratio " + ratio
+        + ")";
+  }
 }
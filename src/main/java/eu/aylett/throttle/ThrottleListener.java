@@ -0,0 +1,80 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+/**
+ * Told about a throttle's decisions, and about the outcomes of the attempts it
+ * lets through, for metrics and logging.
+ * <p>
+ * Listeners are called on the thread making the attempt, or recording its
+ * outcome, so they should be quick and must not throw. The throttle doesn't
+ * allocate to call them. Every method does nothing unless overridden.
+ * </p>
+ *
+ * @see Throttle.Builder#listener(ThrottleListener)
+ */
+public interface ThrottleListener {
+  /**
+   * The latency reported for an attempt when the throttle doesn't know when it
+   * started, as when its outcome is recorded through a {@link Throttle.Permit}.
+   */
+  long UNKNOWN_LATENCY = -1;
+
+  /**
+   * A listener that ignores everything, used when no other is configured.
+   */
+  ThrottleListener NOOP = new ThrottleListener() {
+  };
+
+  /**
+   * An attempt was let through.
+   *
+   * @param admitProbability
+   *          the probability of an attempt being let through, when this one
+   *          was
+   */
+  default void admitted(double admitProbability) {
+  }
+
+  /**
+   * An attempt was rejected.
+   *
+   * @param admitProbability
+   *          the probability of an attempt being let through, when this one
+   *          wasn't
+   */
+  default void rejected(double admitProbability) {
+  }
+
+  /**
+   * An attempt that was let through succeeded.
+   *
+   * @param nanos
+   *          how long the attempt took, or {@link #UNKNOWN_LATENCY}
+   */
+  default void succeeded(long nanos) {
+  }
+
+  /**
+   * An attempt that was let through failed.
+   *
+   * @param nanos
+   *          how long the attempt took, or {@link #UNKNOWN_LATENCY}
+   */
+  default void failed(long nanos) {
+  }
+}
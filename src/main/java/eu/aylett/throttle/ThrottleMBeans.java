@@ -0,0 +1,200 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * Registers throttles, and registries of them, with the platform MBean server,
+ * so they can be watched and adjusted from a JMX console.
+ * <p>
+ * Nothing is registered unless asked for. Throttles are registered as
+ * {@code eu.aylett.throttle:type=Throttle,name=<name>}, and registries as
+ * {@code eu.aylett.throttle:type=ThrottleRegistry,name=<name>}. The server
+ * keeps whatever's registered alive until it's unregistered.
+ * </p>
+ * <p>
+ * The {@code java.management} module is optional for the rest of the library,
+ * so an application that registers throttles must require it itself.
+ * </p>
+ */
+public final class ThrottleMBeans {
+  private static final String DOMAIN = "eu.aylett.throttle";
+
+  private ThrottleMBeans() {
+  }
+
+  /**
+   * Register a throttle, under the name it was built with.
+   *
+   * @return the name it was registered under, for unregistering it
+   * @throws IllegalArgumentException
+   *           if the throttle wasn't built with a name
+   * @throws JMException
+   *           if the MBean server rejects the registration, such as when a
+   *           throttle with the same name is already registered
+   */
+  public static ObjectName register(Throttle throttle) throws JMException {
+    var name = throttle.name();
+    if (name == null) {
+      throw new IllegalArgumentException("Throttle must have a name to register it");
+    }
+    var objectName = objectName("Throttle", name);
+    ManagementFactory.getPlatformMBeanServer().registerMBean(new ThrottleBean(throttle), objectName);
+    return objectName;
+  }
+
+  /**
+   * Register a registry of throttles.
+   *
+   * @param name
+   *          the name to register the registry under
+   * @return the name it was registered under, for unregistering it
+   * @throws JMException
+   *           if the MBean server rejects the registration, such as when a
+   *           registry with the same name is already registered
+   */
+  public static ObjectName register(ThrottleRegistry<?> registry, String name) throws JMException {
+    var objectName = objectName("ThrottleRegistry", name);
+    ManagementFactory.getPlatformMBeanServer().registerMBean(new RegistryBean(registry), objectName);
+    return objectName;
+  }
+
+  /**
+   * Unregister a throttle or registry.
+   *
+   * @param name
+   *          the name returned when it was registered
+   * @throws JMException
+   *           if nothing is registered under the name
+   */
+  public static void unregister(ObjectName name) throws JMException {
+    ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+  }
+
+  private static ObjectName objectName(String type, String name) throws MalformedObjectNameException {
+    return new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+  }
+
+  private record ThrottleBean(Throttle throttle) implements ThrottleMXBean {
+    @Override
+    public double getWindowSuccesses() {
+      return throttle.snapshot().successes();
+    }
+
+    @Override
+    public double getWindowFailures() {
+      return throttle.snapshot().failures();
+    }
+
+    @Override
+    public double getAdmitProbability() {
+      return throttle.snapshot().admitProbability();
+    }
+
+    @Override
+    public long getAdmitted() {
+      return throttle.admitted();
+    }
+
+    @Override
+    public long getRejected() {
+      return throttle.rejected();
+    }
+
+    @Override
+    public long getSucceeded() {
+      return throttle.succeeded();
+    }
+
+    @Override
+    public long getFailed() {
+      return throttle.failed();
+    }
+
+    @Override
+    public double getOverhead() {
+      return throttle.overhead();
+    }
+
+    @Override
+    public void setOverhead(double overhead) {
+      throttle.overhead(overhead);
+    }
+
+    @Override
+    public void resetWindow() {
+      throttle.clearWindow();
+    }
+  }
+
+  private record RegistryBean(ThrottleRegistry<?> registry) implements ThrottleRegistryMXBean {
+    @Override
+    public int getSize() {
+      return registry.size();
+    }
+
+    @Override
+    public double getWindowSuccesses() {
+      var total = new double[1];
+      registry.forEach(throttle -> total[0] += throttle.recentSnapshot().successes());
+      return total[0];
+    }
+
+    @Override
+    public double getWindowFailures() {
+      var total = new double[1];
+      registry.forEach(throttle -> total[0] += throttle.recentSnapshot().failures());
+      return total[0];
+    }
+
+    @Override
+    public double getLowestAdmitProbability() {
+      var lowest = new double[]{1.0};
+      registry.forEach(throttle -> lowest[0] = Math.min(lowest[0], throttle.recentSnapshot().admitProbability()));
+      return lowest[0];
+    }
+
+    @Override
+    public long getAdmitted() {
+      return registry.admitted();
+    }
+
+    @Override
+    public long getRejected() {
+      return registry.rejected();
+    }
+
+    @Override
+    public double getOverhead() {
+      return registry.overhead();
+    }
+
+    @Override
+    public void setOverhead(double overhead) {
+      registry.overhead(overhead);
+    }
+
+    @Override
+    public void resetWindows() {
+      registry.clearWindows();
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+/**
+ * The management interface of a {@link Throttle}, for JMX consoles.
+ * <p>
+ * Reading the attributes doesn't change the throttle's decisions, just as for
+ * {@link Throttle#snapshot()}. Changes made through the interface take effect
+ * from the next attempt.
+ * </p>
+ *
+ * @see ThrottleMBeans#register(Throttle)
+ */
+public interface ThrottleMXBean {
+  /**
+   * The successful attempts in the window.
+   */
+  double getWindowSuccesses();
+
+  /**
+   * The failed attempts in the window, including rejections.
+   */
+  double getWindowFailures();
+
+  /**
+   * The probability that the next attempt will be let through.
+   */
+  double getAdmitProbability();
+
+  /**
+   * How many attempts have been let through since the throttle was created.
+   */
+  long getAdmitted();
+
+  /**
+   * How many attempts have been rejected since the throttle was created.
+   */
+  long getRejected();
+
+  /**
+   * How many of the attempts let through have succeeded since the throttle was
+   * created.
+   */
+  long getSucceeded();
+
+  /**
+   * How many of the attempts let through have failed since the throttle was
+   * created.
+   */
+  long getFailed();
+
+  /**
+   * The ratio of attempts to successes.
+   */
+  double getOverhead();
+
+  /**
+   * Change the ratio of attempts to successes, such as to let more attempts
+   * through while a dependency recovers. Must be at least 1.0.
+   */
+  void setOverhead(double overhead);
+
+  /**
+   * Forget every attempt in the window, so the throttle lets everything through
+   * until it sees failures again.
+   */
+  void resetWindow();
+}
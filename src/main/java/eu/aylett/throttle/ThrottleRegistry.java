@@ -0,0 +1,348 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Throttles for many fault zones, created on demand and sharing one
+ * configuration.
+ * <p>
+ * Looking up a throttle that already exists doesn't take any locks. A throttle
+ * is dropped once its window has been empty for the idle timeout, so memory
+ * use follows the number of keys that have been failing or busy recently
+ * rather than every key ever seen. Dropping a throttle loses nothing: with an
+ * empty window, it would let every attempt through just as a new one would.
+ * </p>
+ * <p>
+ * Idle throttles are found by a sweep over the registry, started at most once
+ * per half of the idle timeout. The sweep is spread over the lookups that
+ * follow: each one checks at most a few throttles, so no lookup pays for a
+ * walk over the whole registry. Look up the throttle for each attempt, rather
+ * than holding on to it: a throttle that's been dropped still works, but the
+ * registry will hand out a new one for its key.
+ * </p>
+ * <p>
+ * A registry may also have a maximum size. A lookup that would take the
+ * registry past it drops another throttle whose window is empty to make room,
+ * looking at a few throttles from where the last such search left off. A
+ * throttle with attempts in its window is never dropped, as a new one would let
+ * every attempt through: if none of those it looks at is empty, the registry
+ * goes over its maximum size until the sweep or a later lookup catches up.
+ * </p>
+ * <p>
+ * The registry keeps lifetime totals of the attempts its throttles have let
+ * through and rejected, including those of throttles it has since dropped.
+ * </p>
+ *
+ * @param <K>
+ *          the type of key identifying each fault zone
+ * @see Throttle.Builder#buildRegistry(Duration)
+ */
+public final class ThrottleRegistry<K> {
+  /**
+   * When the window of a throttle that isn't idle was last seen to be empty.
+   */
+  private static final long NOT_IDLE = Long.MIN_VALUE;
+  /**
+   * How many throttles a lookup checks, when sweeping or making room.
+   */
+  private static final int BATCH = 16;
+
+  private final ConcurrentHashMap<K, Entry> throttles = new ConcurrentHashMap<>();
+  private final Supplier<Throttle> factory;
+  private final Ticker ticker;
+  private final long idleNanos;
+  private final long sweepNanos;
+  private final int maximumSize;
+  private final AtomicLong nextSweep;
+  private final AtomicBoolean sweeping = new AtomicBoolean();
+  /**
+   * How far the current sweep has got, only touched while holding
+   * {@link #sweeping}.
+   */
+  private @Nullable Iterator<Map.Entry<K, Entry>> sweep;
+  private final AtomicBoolean evicting = new AtomicBoolean();
+  /**
+   * Where the last search for room left off, only touched while holding
+   * {@link #evicting}.
+   */
+  private @Nullable Iterator<Map.Entry<K, Entry>> eviction;
+  private volatile double overhead;
+  /**
+   * The totals of the throttles that have been dropped.
+   */
+  private final LongAdder droppedAdmitted = new LongAdder();
+  private final LongAdder droppedRejected = new LongAdder();
+  /**
+   * How many drops have started and finished, so the totals can be read without
+   * missing a throttle that's on its way from the map to the dropped totals.
+   */
+  private final AtomicLong dropsStarted = new AtomicLong();
+  private final AtomicLong dropsFinished = new AtomicLong();
+
+  ThrottleRegistry(Supplier<Throttle> factory, double overhead, Ticker ticker, Duration idleTimeout,
+      int maximumSize) {
+    if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+      throw new IllegalArgumentException("Idle timeout must be positive");
+    }
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("Maximum size must be at least one");
+    }
+    this.factory = factory;
+    this.overhead = overhead;
+    this.ticker = ticker;
+    this.idleNanos = idleTimeout.toNanos();
+    this.sweepNanos = Math.max(1, idleNanos / 2);
+    this.maximumSize = maximumSize;
+    this.nextSweep = new AtomicLong(ticker.read() + sweepNanos);
+  }
+
+  /**
+   * The throttle for a key, creating it if there isn't one yet.
+   */
+  public Throttle get(K key) {
+    var entry = throttles.get(key);
+    if (entry == null) {
+      entry = throttles.computeIfAbsent(key, k -> new Entry(create()));
+      // A change of overhead between creating the throttle and inserting it
+      // wouldn't have reached it, so catch up now that it's visible
+      entry.throttle.overhead(overhead);
+      if (throttles.size() > maximumSize) {
+        makeRoom(entry);
+      }
+    }
+    maybeSweep();
+    return entry.throttle;
+  }
+
+  /**
+   * How many throttles the registry currently holds.
+   */
+  public int size() {
+    return throttles.size();
+  }
+
+  /**
+   * The ratio of attempts to successes for the registry's throttles.
+   */
+  double overhead() {
+    return overhead;
+  }
+
+  /**
+   * Change the ratio of attempts to successes for every throttle in the
+   * registry, and for those it creates from now on.
+   *
+   * @throws IllegalArgumentException
+   *           if the overhead is less than 1.0
+   */
+  void overhead(double overhead) {
+    if (overhead < 1.0) {
+      throw new IllegalArgumentException("Overhead must be at least 1.0");
+    }
+    this.overhead = overhead;
+    forEach(throttle -> throttle.overhead(overhead));
+  }
+
+  /**
+   * Forget every attempt in the windows of the registry's throttles.
+   */
+  void clearWindows() {
+    forEach(Throttle::clearWindow);
+  }
+
+  /**
+   * How many attempts the registry's throttles have let through, including
+   * throttles it has dropped.
+   */
+  long admitted() {
+    return total(Throttle::admitted, droppedAdmitted);
+  }
+
+  /**
+   * How many attempts the registry's throttles have rejected, including
+   * throttles it has dropped.
+   */
+  long rejected() {
+    return total(Throttle::rejected, droppedRejected);
+  }
+
+  /**
+   * Call the action for each throttle the registry currently holds.
+   */
+  void forEach(Consumer<Throttle> action) {
+    throttles.values().forEach(entry -> action.accept(entry.throttle));
+  }
+
+  private Throttle create() {
+    var throttle = factory.get();
+    // The overhead may have been changed since the registry was built
+    throttle.overhead(overhead);
+    return throttle;
+  }
+
+  /**
+   * Check the next few throttles of the current sweep, if one is due or under
+   * way, and drop those that have been idle for the timeout.
+   */
+  private void maybeSweep() {
+    var now = ticker.read();
+    if (now - nextSweep.get() < 0 || !sweeping.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      var cursor = sweep;
+      if (cursor == null) {
+        cursor = throttles.entrySet().iterator();
+      }
+      for (var i = 0; i < BATCH && cursor.hasNext(); i++) {
+        var candidate = cursor.next();
+        if (candidate.getValue().idleFor(now) >= idleNanos) {
+          drop(candidate.getKey(), candidate.getValue());
+        }
+      }
+      if (cursor.hasNext()) {
+        sweep = cursor;
+      } else {
+        sweep = null;
+        nextSweep.set(now + sweepNanos);
+      }
+    } finally {
+      sweeping.set(false);
+    }
+  }
+
+  /**
+   * Drop idle throttles other than the one just added until the registry is
+   * back within its maximum size, or until a batch of throttles turns up none.
+   */
+  private void makeRoom(Entry added) {
+    if (!evicting.compareAndSet(false, true)) {
+      // Someone else is making room already
+      return;
+    }
+    try {
+      while (throttles.size() > maximumSize) {
+        if (!dropIdle(added)) {
+          return;
+        }
+      }
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+  /**
+   * Drop the first idle throttle among the next few from the eviction cursor,
+   * starting again from the beginning of the registry if it runs out.
+   *
+   * @return whether a throttle was dropped
+   */
+  private boolean dropIdle(Entry added) {
+    var cursor = eviction;
+    for (var checked = 0; checked < BATCH; checked++) {
+      if (cursor == null || !cursor.hasNext()) {
+        cursor = throttles.entrySet().iterator();
+        if (!cursor.hasNext()) {
+          break;
+        }
+      }
+      var candidate = cursor.next();
+      var entry = candidate.getValue();
+      if (entry != added && entry.throttle.isIdle() && drop(candidate.getKey(), entry)) {
+        eviction = cursor;
+        return true;
+      }
+    }
+    eviction = cursor;
+    return false;
+  }
+
+  /**
+   * Remove a throttle, adding its totals to those of the dropped throttles.
+   *
+   * @return whether the throttle was still in the registry
+   */
+  private boolean drop(K key, Entry entry) {
+    dropsStarted.incrementAndGet();
+    try {
+      if (!throttles.remove(key, entry)) {
+        return false;
+      }
+      droppedAdmitted.add(entry.throttle.admitted());
+      droppedRejected.add(entry.throttle.rejected());
+      return true;
+    } finally {
+      dropsFinished.incrementAndGet();
+    }
+  }
+
+  /**
+   * Add up a lifetime total over the current and dropped throttles, trying
+   * again if a throttle was dropped while we were counting, which could have
+   * counted it twice or not at all.
+   */
+  private long total(ToLongFunction<Throttle> current, LongAdder dropped) {
+    while (true) {
+      var finished = dropsFinished.get();
+      var total = dropped.sum();
+      for (var entry : throttles.values()) {
+        total += current.applyAsLong(entry.throttle);
+      }
+      if (dropsStarted.get() == finished) {
+        return total;
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  private static final class Entry {
+    final Throttle throttle;
+    volatile long emptySince = NOT_IDLE;
+
+    Entry(Throttle throttle) {
+      this.throttle = throttle;
+    }
+
+    /**
+     * How long the throttle's window has been empty, as far as the sweeps have
+     * seen.
+     */
+    long idleFor(long now) {
+      if (!throttle.isIdle()) {
+        emptySince = NOT_IDLE;
+        return 0;
+      }
+      if (emptySince == NOT_IDLE) {
+        emptySince = now;
+      }
+      return now - emptySince;
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+/**
+ * The management interface of a {@link ThrottleRegistry}, for JMX consoles.
+ * <p>
+ * Changes made through the interface apply to every throttle in the registry,
+ * and the overhead also applies to throttles it creates later. The window
+ * attributes cover the throttles the registry currently holds, as of each
+ * one's last decision, and are read without taking any locks that attempts
+ * need.
+ * </p>
+ *
+ * @see ThrottleMBeans#register(ThrottleRegistry, String)
+ */
+public interface ThrottleRegistryMXBean {
+  /**
+   * How many throttles the registry currently holds.
+   */
+  int getSize();
+
+  /**
+   * The successful attempts in the windows of the registry's throttles, added
+   * up.
+   */
+  double getWindowSuccesses();
+
+  /**
+   * The failed attempts in the windows of the registry's throttles, added up,
+   * including rejections.
+   */
+  double getWindowFailures();
+
+  /**
+   * The lowest probability among the registry's throttles that the next
+   * attempt will be let through, or 1.0 if it holds none: below 1.0, at least
+   * one of its fault zones is being throttled.
+   */
+  double getLowestAdmitProbability();
+
+  /**
+   * How many attempts the registry's throttles have let through since it was
+   * created, including throttles it has since dropped.
+   */
+  long getAdmitted();
+
+  /**
+   * How many attempts the registry's throttles have rejected since it was
+   * created, including throttles it has since dropped.
+   */
+  long getRejected();
+
+  /**
+   * The ratio of attempts to successes for the registry's throttles.
+   */
+  double getOverhead();
+
+  /**
+   * Change the ratio of attempts to successes for every throttle in the
+   * registry. Must be at least 1.0.
+   */
+  void setOverhead(double overhead);
+
+  /**
+   * Forget every attempt in the windows of the registry's throttles.
+   */
+  void resetWindows();
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An executor service that asks a throttle before accepting each task.
+ * <p>
+ * Tasks are let through or rejected as they're submitted, so during an outage
+ * doomed work is turned away straight away rather than waiting in the queue
+ * for a thread. A rejected task causes a {@link RejectedExecutionException},
+ * caused by the {@link ThrottleException}. Each task that's accepted counts
+ * as a success if it completes normally, and as a failure if it throws or is
+ * cancelled. A task that the delegate rejects, such as because its queue is
+ * full, doesn't count either way: that says nothing about the dependency, so
+ * the throttle's admission is undone.
+ * </p>
+ * <p>
+ * Tasks run on the delegate executor, which is shut down along with this one.
+ * </p>
+ */
+public final class ThrottledExecutorService extends AbstractExecutorService {
+  private final Throttle throttle;
+  private final ExecutorService delegate;
+
+  /**
+   * Create an executor service that throttles the tasks it passes on.
+   *
+   * @param throttle
+   *          the throttle to ask before accepting each task
+   * @param delegate
+   *          the executor service to run accepted tasks on
+   */
+  public ThrottledExecutorService(Throttle throttle, ExecutorService delegate) {
+    this.throttle = throttle;
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    Throttle.Permit permit;
+    try {
+      permit = throttle.acquire();
+    } catch (ThrottleException e) {
+      throw new RejectedExecutionException("Throttle limit exceeded", e);
+    }
+    if (command instanceof ThrottledTask<?> task) {
+      task.permit.set(permit);
+      try {
+        delegate.execute(task);
+      } catch (RejectedExecutionException e) {
+        task.releaseOnce();
+        throw e;
+      }
+    } else {
+      try {
+        delegate.execute(() -> {
+          var success = false;
+          try {
+            command.run();
+            success = true;
+          } finally {
+            record(permit, success);
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        permit.release();
+        throw e;
+      }
+    }
+  }
+
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+    return new ThrottledTask<>(callable);
+  }
+
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+    return new ThrottledTask<>(runnable, value);
+  }
+
+  @Override
+  public void shutdown() {
+    delegate.shutdown();
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    return delegate.shutdownNow();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return delegate.isShutdown();
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return delegate.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return delegate.awaitTermination(timeout, unit);
+  }
+
+  private static void record(Throttle.Permit permit, boolean success) {
+    if (success) {
+      permit.recordSuccess();
+    } else {
+      permit.recordFailure();
+    }
+  }
+
+  /**
+   * A submitted task, which records its outcome when it completes, including
+   * when it's cancelled before it gets to run.
+   * <p>
+   * A task that runs records its outcome before it completes, so anyone
+   * waiting on {@link #get()} sees the throttle already updated.
+   * </p>
+   */
+  private static final class ThrottledTask<T> extends FutureTask<T> {
+    /**
+     * Set once the task has been let through, before it's handed to the
+     * delegate, and taken by whichever of completion and cancellation records
+     * the outcome.
+     */
+    final AtomicReference<Throttle.@Nullable Permit> permit = new AtomicReference<>();
+
+    ThrottledTask(Callable<T> callable) {
+      super(callable);
+    }
+
+    ThrottledTask(Runnable runnable, T value) {
+      super(runnable, value);
+    }
+
+    @Override
+    protected void set(T value) {
+      recordOnce(true);
+      super.set(value);
+    }
+
+    @Override
+    protected void setException(Throwable t) {
+      recordOnce(false);
+      super.setException(t);
+    }
+
+    @Override
+    protected void done() {
+      // Only still holding the permit if the task was cancelled
+      recordOnce(false);
+    }
+
+    void recordOnce(boolean success) {
+      var acquired = permit.getAndSet(null);
+      if (acquired != null) {
+        ThrottledExecutorService.record(acquired, success);
+      }
+    }
+
+    void releaseOnce() {
+      var acquired = permit.getAndSet(null);
+      if (acquired != null) {
+        acquired.release();
+      }
+    }
+  }
+}
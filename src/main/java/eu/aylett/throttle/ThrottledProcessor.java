@@ -0,0 +1,235 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.Queue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A processor that makes a throttled call for each element it receives, and
+ * publishes the results.
+ * <p>
+ * Each element is admitted or rejected by the throttle as it arrives. Admitted
+ * elements are passed to the call, and its outcome is recorded when the stage
+ * it returns completes. Rejected elements, and elements whose call fails, are
+ * shed: they're dropped, and another element is requested from upstream in
+ * their place. Only as many elements are requested from upstream as the
+ * subscriber has asked for, so nothing is buffered beyond the results of calls
+ * that are already in flight.
+ * </p>
+ * <p>
+ * Results are published in the order their calls complete, which may not be
+ * the order the elements arrived in. Calls must not complete with
+ * {@code null}; a {@code null} result is shed. Only one subscriber is
+ * supported.
+ * </p>
+ *
+ * @param <T>
+ *          the type of element received
+ * @param <R>
+ *          the type of result published
+ */
+public final class ThrottledProcessor<T, R> implements Flow.Processor<T, R> {
+  private final Throttle throttle;
+  private final Function<? super T, ? extends CompletionStage<R>> call;
+  private final Queue<R> results = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger draining = new AtomicInteger();
+  private final AtomicLong pendingRequests = new AtomicLong();
+  private volatile Flow.@Nullable Subscription upstream;
+  private volatile Flow.@Nullable Subscriber<? super R> downstream;
+  private volatile boolean done;
+  private volatile boolean cancelled;
+  private volatile @Nullable Throwable error;
+  private boolean terminated;
+
+  /**
+   * Create a processor that makes throttled calls.
+   *
+   * @param throttle
+   *          the throttle to make the calls through
+   * @param call
+   *          the call to make for each element
+   */
+  public ThrottledProcessor(Throttle throttle, Function<? super T, ? extends CompletionStage<R>> call) {
+    this.throttle = throttle;
+    this.call = call;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super R> subscriber) {
+    boolean first;
+    synchronized (this) {
+      first = downstream == null;
+      if (first) {
+        downstream = subscriber;
+      }
+    }
+    if (first) {
+      subscriber.onSubscribe(new Subscription());
+      // We may have been waiting for a subscriber to deliver an error to
+      drain();
+    } else {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+          // Nothing will ever be delivered
+        }
+
+        @Override
+        public void cancel() {
+          // Nothing to cancel
+        }
+      });
+      subscriber.onError(new IllegalStateException("ThrottledProcessor only supports one subscriber"));
+    }
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    if (upstream != null || cancelled || done) {
+      subscription.cancel();
+      return;
+    }
+    upstream = subscription;
+    var pending = pendingRequests.getAndSet(0);
+    if (pending > 0) {
+      subscription.request(pending);
+    }
+  }
+
+  @Override
+  public void onNext(T item) {
+    if (cancelled) {
+      return;
+    }
+    inFlight.incrementAndGet();
+    throttle.attemptAsync(() -> call.apply(item)).whenComplete((result, failure) -> {
+      if (failure == null && result != null) {
+        results.offer(result);
+      } else {
+        // Shed the element, and ask for another in its place
+        requestUpstream(1);
+      }
+      inFlight.decrementAndGet();
+      drain();
+    });
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    error = throwable;
+    done = true;
+    drain();
+  }
+
+  @Override
+  public void onComplete() {
+    done = true;
+    drain();
+  }
+
+  private void requestUpstream(long n) {
+    var subscription = upstream;
+    if (subscription != null) {
+      subscription.request(n);
+      return;
+    }
+    pendingRequests.accumulateAndGet(n, ThrottledProcessor::addCapped);
+    // We might have raced with onSubscribe
+    subscription = upstream;
+    if (subscription != null) {
+      var pending = pendingRequests.getAndSet(0);
+      if (pending > 0) {
+        subscription.request(pending);
+      }
+    }
+  }
+
+  /**
+   * Deliver results and terminal signals to the subscriber, from one thread at a
+   * time.
+   */
+  private void drain() {
+    if (draining.getAndIncrement() != 0) {
+      return;
+    }
+    var missed = 1;
+    do {
+      var subscriber = downstream;
+      if (subscriber != null && !terminated) {
+        R result;
+        while ((result = results.poll()) != null) {
+          if (!cancelled) {
+            subscriber.onNext(result);
+          }
+        }
+        if (done && inFlight.get() == 0 && results.isEmpty()) {
+          terminated = true;
+          var failure = error;
+          if (!cancelled) {
+            if (failure != null) {
+              subscriber.onError(failure);
+            } else {
+              subscriber.onComplete();
+            }
+          }
+        }
+      }
+      missed = draining.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private static long addCapped(long a, long b) {
+    var sum = a + b;
+    return sum < 0 ? Long.MAX_VALUE : sum;
+  }
+
+  private final class Subscription implements Flow.Subscription {
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        var subscription = upstream;
+        if (subscription != null) {
+          subscription.cancel();
+        }
+        error = new IllegalArgumentException("Subscribers must request a positive number of elements");
+        done = true;
+        drain();
+        return;
+      }
+      requestUpstream(n);
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      var subscription = upstream;
+      if (subscription != null) {
+        subscription.cancel();
+      }
+      results.clear();
+    }
+  }
+}
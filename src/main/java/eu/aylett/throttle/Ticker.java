@@ -0,0 +1,60 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import java.time.InstantSource;
+
+/**
+ * A source of monotonic time, in nanoseconds.
+ * <p>
+ * Throttles only ever compare readings from the same ticker, so its origin is
+ * arbitrary. Reading it should be cheap, as it's read at least twice for every
+ * attempt.
+ * </p>
+ */
+@FunctionalInterface
+public interface Ticker {
+  /**
+   * The current time, in nanoseconds since some arbitrary origin.
+   */
+  long read();
+
+  /**
+   * A ticker that reads {@link System#nanoTime()}.
+   * <p>
+   * This is the default for throttles: it's cheap, and it isn't affected by
+   * changes to the wall clock.
+   * </p>
+   */
+  static Ticker system() {
+    return System::nanoTime;
+  }
+
+  /**
+   * A ticker that reads the given source of instants, mainly for testing.
+   *
+   * @param clock
+   *          the source of instants; the ticker counts nanoseconds since the
+   *          epoch
+   */
+  static Ticker of(InstantSource clock) {
+    return () -> {
+      var instant = clock.instant();
+      return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+    };
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+/**
+ * The record of recent attempts that a {@link Throttle} bases its decisions on.
+ * <p>
+ * Implementations must be safe to use from multiple threads.
+ * </p>
+ */
+sealed interface Window permits ExactWindow, BucketedWindow, DecayingWindow {
+  /**
+   * Drop any attempts that have fallen out of the window.
+   */
+  void expire();
+
+  /**
+   * The number of successful attempts in the window, as of the last expiry.
+   * <p>
+   * This is a whole number unless the window weights attempts by their age.
+   * Reading it doesn't take any locks, so it may not yet include an attempt
+   * that's being recorded.
+   * </p>
+   */
+  double successes();
+
+  /**
+   * The number of failed attempts in the window, as of the last expiry.
+   * <p>
+   * This is a whole number unless the window weights attempts by their age.
+   * Reading it doesn't take any locks, so it may not yet include an attempt
+   * that's being recorded.
+   * </p>
+   */
+  double failures();
+
+  /**
+   * The attempts in the window as of now, without expiring anything.
+   */
+  Counts peek();
+
+  /**
+   * Record the outcome of an attempt that has just finished.
+   */
+  void record(boolean success);
+
+  /**
+   * Record the outcomes of a batch of attempts that have just finished, in one
+   * update.
+   */
+  void record(long successes, long failures);
+
+  /**
+   * Forget every attempt in the window.
+   * <p>
+   * Attempts recorded while the window is being cleared may or may not be
+   * forgotten.
+   * </p>
+   */
+  void clear();
+
+  /**
+   * The successful and failed attempts in a window.
+   */
+  record Counts(double successes, double failures) {
+  }
+}
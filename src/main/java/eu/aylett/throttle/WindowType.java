@@ -0,0 +1,51 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+/**
+ * How a {@link Throttle} keeps track of the attempts it has seen.
+ */
+public enum WindowType {
+  /**
+   * Track every attempt individually, expiring each one exactly when it leaves
+   * the window.
+   * <p>
+   * Memory use grows with the request rate.
+   * </p>
+   */
+  EXACT,
+  /**
+   * Count attempts in a fixed ring of time buckets, expiring a whole bucket at a
+   * time.
+   * <p>
+   * Memory use is constant, regardless of the request rate, at the cost of
+   * attempts expiring up to one bucket's width early. Admitting and recording
+   * attempts doesn't allocate.
+   * </p>
+   */
+  BUCKETED,
+  /**
+   * Weight attempts by how recently they happened, with their weight halving
+   * every half-life.
+   * <p>
+   * Memory use is constant and there are no entries to expire, and the ratio of
+   * successes to failures changes smoothly rather than all at once when a burst
+   * of attempts leaves the window.
+   * </p>
+   */
+  DECAYING,
+}
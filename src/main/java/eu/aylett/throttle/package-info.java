@@ -24,13 +24,19 @@
  * <p>
  * One instance of Throttle should be used for each distinct fault zone
  * (normally each service) you call. You <i>should</i> use the same instance for
- * different methods called on the same service.
+ * different methods called on the same service. Where there are many fault
+ * zones, such as one per tenant shard, a {@link eu.aylett.throttle.ThrottleRegistry}
+ * creates a throttle for each on demand and drops them once they're idle.
  * </p>
  * <p>
  * I recommend putting the Throttle around service-specific logic, rather than
  * at the point of actually making a network call. There's no point in setting
  * up the call only to decide to throttle it.
  * </p>
+ * <p>
+ * The overhead, the length of the window and how attempts are tracked within
+ * it may all be tuned per dependency using {@link eu.aylett.throttle.Throttle#builder()}.
+ * </p>
  */
 @NullMarked
 package eu.aylett.throttle;
@@ -15,6 +15,8 @@
  */
 
 open module eu.aylett.throttle {
+  requires static java.management;
+  requires static jdk.jfr;
   requires org.jspecify;
   requires org.checkerframework.checker.qual;
   requires org.jetbrains.annotations;
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+class BucketedWindowTest {
+  private long now = 0;
+  private final Ticker ticker = () -> now;
+
+  @Test
+  void countsRecordedAttempts() {
+    var window = new BucketedWindow(ticker, Duration.ofMinutes(1), 60);
+    window.record(true);
+    window.record(true);
+    window.record(false);
+    window.expire();
+    assertThat(window.successes(), equalTo(2.0));
+    assertThat(window.failures(), equalTo(1.0));
+  }
+
+  @Test
+  void expiresWholeBuckets() {
+    var window = new BucketedWindow(ticker, Duration.ofMinutes(1), 60);
+    window.record(true);
+    now += SECONDS.toNanos(30);
+    window.record(false);
+
+    now += SECONDS.toNanos(29);
+    window.expire();
+    assertThat(window.successes(), equalTo(1.0));
+    assertThat(window.failures(), equalTo(1.0));
+
+    now += SECONDS.toNanos(1);
+    window.expire();
+    assertThat(window.successes(), equalTo(0.0));
+    assertThat(window.failures(), equalTo(1.0));
+
+    now += SECONDS.toNanos(30);
+    window.expire();
+    assertThat(window.successes(), equalTo(0.0));
+    assertThat(window.failures(), equalTo(0.0));
+  }
+
+  @Test
+  void expiresEverythingAfterLongGap() {
+    var window = new BucketedWindow(ticker, Duration.ofMinutes(1), 60);
+    window.record(true);
+    window.record(false);
+    now += HOURS.toNanos(1);
+    window.expire();
+    assertThat(window.successes(), equalTo(0.0));
+    assertThat(window.failures(), equalTo(0.0));
+  }
+
+  @Test
+  void recordsBatches() {
+    var window = new BucketedWindow(ticker, Duration.ofMinutes(1), 60);
+    window.record(150, 50);
+    window.record(true);
+    window.expire();
+    assertThat(window.successes(), equalTo(151.0));
+    assertThat(window.failures(), equalTo(50.0));
+  }
+
+  @Test
+  void peeksWithoutExpiring() {
+    var window = new BucketedWindow(ticker, Duration.ofMinutes(1), 60);
+    window.record(true);
+    now += SECONDS.toNanos(30);
+    window.record(false);
+    assertThat(window.peek(), equalTo(new Window.Counts(1, 1)));
+    now += SECONDS.toNanos(30);
+    assertThat(window.peek(), equalTo(new Window.Counts(0, 1)));
+    window.expire();
+    assertThat(window.successes(), equalTo(0.0));
+    assertThat(window.failures(), equalTo(1.0));
+  }
+
+  @Test
+  void toleratesClockGoingBackwards() {
+    var window = new BucketedWindow(ticker, Duration.ofMinutes(1), 60);
+    window.record(true);
+    now -= SECONDS.toNanos(10);
+    window.record(false);
+    window.expire();
+    assertThat(window.successes(), equalTo(1.0));
+    assertThat(window.failures(), equalTo(1.0));
+  }
+
+  @Test
+  void countsConcurrentAttempts() throws Exception {
+    var window = new BucketedWindow(ticker, Duration.ofMinutes(1), 60);
+    var threads = 8;
+    var attempts = 10_000;
+    try (var executor = Executors.newFixedThreadPool(threads)) {
+      var futures = IntStream.range(0, threads).mapToObj(t -> executor.submit(() -> {
+        for (var i = 0; i < attempts; i++) {
+          window.record(i % 2 == 0);
+        }
+      })).toList();
+      for (var future : futures) {
+        future.get();
+      }
+    }
+    window.expire();
+    assertThat(window.successes(), equalTo((double) threads * attempts / 2));
+    assertThat(window.failures(), equalTo((double) threads * attempts / 2));
+  }
+
+  @Test
+  void needsAtLeastOneBucket() {
+    assertThrows(IllegalArgumentException.class, () -> new BucketedWindow(ticker, Duration.ofMinutes(1), 0));
+  }
+
+  @Test
+  void needsNonEmptyBuckets() {
+    assertThrows(IllegalArgumentException.class, () -> new BucketedWindow(ticker, Duration.ofNanos(1), 2));
+  }
+
+  @Test
+  void clearForgetsEverything() {
+    var window = new BucketedWindow(ticker, Duration.ofMinutes(1), 60);
+    window.record(true);
+    now += SECONDS.toNanos(10);
+    window.record(3, 2);
+    window.expire();
+    window.clear();
+    assertThat(window.peek(), equalTo(new Window.Counts(0, 0)));
+    window.expire();
+    assertThat(window.successes(), equalTo(0.0));
+    assertThat(window.failures(), equalTo(0.0));
+
+    window.record(false);
+    window.expire();
+    assertThat(window.failures(), equalTo(1.0));
+
+    // The cleared attempts don't come back as time moves on
+    now += SECONDS.toNanos(1);
+    window.expire();
+    assertThat(window.successes(), equalTo(0.0));
+    assertThat(window.failures(), equalTo(1.0));
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+class DecayingWindowTest {
+  private long now = 0;
+  private final Ticker ticker = () -> now;
+
+  @Test
+  void countsRecordedAttempts() {
+    var window = new DecayingWindow(ticker, Duration.ofSeconds(30));
+    window.record(true);
+    window.record(true);
+    window.record(false);
+    window.expire();
+    assertThat(window.successes(), equalTo(2.0));
+    assertThat(window.failures(), equalTo(1.0));
+  }
+
+  @Test
+  void halvesEveryHalfLife() {
+    var window = new DecayingWindow(ticker, Duration.ofSeconds(30));
+    window.record(true);
+    window.record(false);
+    window.record(false);
+
+    now += SECONDS.toNanos(30);
+    window.expire();
+    assertThat(window.successes(), closeTo(0.5, 1e-9));
+    assertThat(window.failures(), closeTo(1.0, 1e-9));
+
+    now += SECONDS.toNanos(60);
+    window.expire();
+    assertThat(window.successes(), closeTo(0.125, 1e-9));
+    assertThat(window.failures(), closeTo(0.25, 1e-9));
+  }
+
+  @Test
+  void decaysBeforeRecording() {
+    var window = new DecayingWindow(ticker, Duration.ofSeconds(30));
+    window.record(false);
+    now += SECONDS.toNanos(30);
+    window.record(false);
+    assertThat(window.failures(), closeTo(1.5, 1e-9));
+  }
+
+  @Test
+  void recordsBatches() {
+    var window = new DecayingWindow(ticker, Duration.ofSeconds(30));
+    window.record(false);
+    now += SECONDS.toNanos(30);
+    window.record(3, 2);
+    assertThat(window.successes(), closeTo(3.0, 1e-9));
+    assertThat(window.failures(), closeTo(2.5, 1e-9));
+  }
+
+  @Test
+  void peeksWithoutDecaying() {
+    var window = new DecayingWindow(ticker, Duration.ofSeconds(30));
+    window.record(true);
+    now += SECONDS.toNanos(30);
+    assertThat(window.peek().successes(), closeTo(0.5, 1e-9));
+    assertThat(window.successes(), equalTo(1.0));
+  }
+
+  @Test
+  void toleratesClockGoingBackwards() {
+    var window = new DecayingWindow(ticker, Duration.ofSeconds(30));
+    window.record(true);
+    now -= SECONDS.toNanos(10);
+    window.record(false);
+    window.expire();
+    assertThat(window.successes(), equalTo(1.0));
+    assertThat(window.failures(), equalTo(1.0));
+  }
+
+  @Test
+  void needsPositiveHalfLife() {
+    assertThrows(IllegalArgumentException.class, () -> new DecayingWindow(ticker, Duration.ZERO));
+  }
+
+  @Test
+  void clearForgetsEverything() {
+    var window = new DecayingWindow(ticker, Duration.ofSeconds(30));
+    window.record(true);
+    now += SECONDS.toNanos(10);
+    window.record(3, 2);
+    window.expire();
+    window.clear();
+    assertThat(window.peek(), equalTo(new Window.Counts(0, 0)));
+    window.expire();
+    assertThat(window.successes(), equalTo(0.0));
+    assertThat(window.failures(), equalTo(0.0));
+
+    window.record(false);
+    window.expire();
+    assertThat(window.failures(), equalTo(1.0));
+  }
+}
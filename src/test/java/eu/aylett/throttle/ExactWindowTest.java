@@ -0,0 +1,180 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+class ExactWindowTest {
+  private long now = 0;
+  private final Ticker ticker = () -> now;
+
+  @Test
+  void countsRecordedAttempts() {
+    var window = new ExactWindow(ticker, Duration.ofMinutes(1));
+    window.record(true);
+    window.record(true);
+    window.record(false);
+    window.expire();
+    assertThat(window.successes(), equalTo(2.0));
+    assertThat(window.failures(), equalTo(1.0));
+  }
+
+  @Test
+  void expiresEachAttemptExactly() {
+    var window = new ExactWindow(ticker, Duration.ofMinutes(1));
+    window.record(true);
+    now += MILLISECONDS.toNanos(500);
+    window.record(false);
+
+    now += SECONDS.toNanos(59);
+    window.expire();
+    assertThat(window.successes(), equalTo(1.0));
+    assertThat(window.failures(), equalTo(1.0));
+
+    now += MILLISECONDS.toNanos(500);
+    window.expire();
+    assertThat(window.successes(), equalTo(0.0));
+    assertThat(window.failures(), equalTo(1.0));
+
+    now += MILLISECONDS.toNanos(500);
+    window.expire();
+    assertThat(window.successes(), equalTo(0.0));
+    assertThat(window.failures(), equalTo(0.0));
+  }
+
+  @Test
+  void growsAndShrinksAcrossTheEndOfTheRing() {
+    var window = new ExactWindow(ticker, Duration.ofMinutes(1));
+    // Move the head part-way round the ring before it needs to grow
+    for (var i = 0; i < 10; i++) {
+      window.record(false);
+    }
+    now += SECONDS.toNanos(30);
+    for (var i = 0; i < 1000; i++) {
+      window.record(i % 2 == 0);
+    }
+    now += SECONDS.toNanos(30);
+    window.expire();
+    assertThat(window.successes(), equalTo(500.0));
+    assertThat(window.failures(), equalTo(500.0));
+
+    window.record(true);
+    now += SECONDS.toNanos(30);
+    window.expire();
+    assertThat(window.successes(), equalTo(1.0));
+    assertThat(window.failures(), equalTo(0.0));
+  }
+
+  @Test
+  void recordsBatchesThatGrowTheRing() {
+    var window = new ExactWindow(ticker, Duration.ofMinutes(1));
+    for (var i = 0; i < 10; i++) {
+      window.record(false);
+    }
+    now += SECONDS.toNanos(30);
+    window.record(150, 50);
+    now += SECONDS.toNanos(30);
+    window.expire();
+    assertThat(window.successes(), equalTo(150.0));
+    assertThat(window.failures(), equalTo(50.0));
+
+    now += SECONDS.toNanos(30);
+    window.expire();
+    assertThat(window.successes(), equalTo(0.0));
+    assertThat(window.failures(), equalTo(0.0));
+  }
+
+  @Test
+  void peeksWithoutExpiring() {
+    var window = new ExactWindow(ticker, Duration.ofMinutes(1));
+    window.record(true);
+    now += SECONDS.toNanos(30);
+    window.record(false);
+    now += SECONDS.toNanos(30);
+    assertThat(window.peek(), equalTo(new Window.Counts(0, 1)));
+    assertThat(window.successes(), equalTo(1.0));
+  }
+
+  @Test
+  void readsCountsWithoutWaitingForTheLock() throws Exception {
+    var window = new ExactWindow(ticker, Duration.ofMinutes(1));
+    window.record(true);
+    window.record(false);
+    var locked = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    try (var executor = Executors.newSingleThreadExecutor()) {
+      var holder = executor.submit(() -> {
+        synchronized (window) {
+          locked.countDown();
+          release.await();
+        }
+        return null;
+      });
+      locked.await();
+      try {
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+          assertThat(window.successes(), equalTo(1.0));
+          assertThat(window.failures(), equalTo(1.0));
+        });
+      } finally {
+        release.countDown();
+      }
+      holder.get();
+    }
+  }
+
+  @Test
+  void toleratesClockGoingBackwards() {
+    var window = new ExactWindow(ticker, Duration.ofMinutes(1));
+    window.record(true);
+    now -= SECONDS.toNanos(10);
+    window.record(false);
+    now += SECONDS.toNanos(70);
+    window.expire();
+    assertThat(window.successes(), equalTo(0.0));
+    assertThat(window.failures(), equalTo(0.0));
+  }
+
+  @Test
+  void clearForgetsEverything() {
+    var window = new ExactWindow(ticker, Duration.ofMinutes(1));
+    window.record(true);
+    now += SECONDS.toNanos(10);
+    window.record(3, 2);
+    window.expire();
+    window.clear();
+    assertThat(window.peek(), equalTo(new Window.Counts(0, 0)));
+    window.expire();
+    assertThat(window.successes(), equalTo(0.0));
+    assertThat(window.failures(), equalTo(0.0));
+
+    window.record(false);
+    window.expire();
+    assertThat(window.failures(), equalTo(1.0));
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+class LatencyHistogramTest {
+  private long now = 0;
+  private final Ticker ticker = () -> now;
+
+  @Test
+  void bucketsAreWithinThreePercent() {
+    var previous = -1L;
+    for (var value = 0L; value < 1L << 40; value = value * 3 / 2 + 1) {
+      var highest = LatencyHistogram.highestValue(LatencyHistogram.index(value));
+      assertThat(highest, allOf(greaterThanOrEqualTo(value), lessThanOrEqualTo(value + value / 32)));
+      assertThat(LatencyHistogram.index(highest), equalTo(LatencyHistogram.index(value)));
+      assertThat(LatencyHistogram.index(highest + 1), equalTo(LatencyHistogram.index(value) + 1));
+      assertThat(highest, greaterThanOrEqualTo(previous));
+      previous = highest;
+    }
+  }
+
+  @Test
+  void reportsPercentiles() {
+    var histogram = new LatencyHistogram(ticker, Duration.ofMinutes(1));
+    assertThat(histogram.percentile(99.0), equalTo(Duration.ZERO));
+
+    for (var i = 1; i <= 100; i++) {
+      histogram.record(i * 1_000_000L);
+    }
+    assertThat(histogram.count(), equalTo(100L));
+    assertThat(histogram.percentile(50.0).toNanos(), allOf(greaterThanOrEqualTo(50_000_000L), lessThan(52_000_000L)));
+    assertThat(histogram.percentile(99.0).toNanos(), allOf(greaterThanOrEqualTo(99_000_000L), lessThan(102_000_000L)));
+    assertThat(histogram.percentile(0.0).toNanos(), allOf(greaterThanOrEqualTo(1_000_000L), lessThan(1_040_000L)));
+    assertThrows(IllegalArgumentException.class, () -> histogram.percentile(101.0));
+  }
+
+  @Test
+  void clampsOutOfRangeLatencies() {
+    var histogram = new LatencyHistogram(ticker, Duration.ofMinutes(1));
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+    assertThat(histogram.percentile(50.0), equalTo(Duration.ZERO));
+    assertThat(histogram.percentile(100.0), equalTo(Duration.ofNanos((1L << 40) - 1)));
+  }
+
+  @Test
+  void expiresOldSlices() {
+    var histogram = new LatencyHistogram(ticker, Duration.ofMinutes(1));
+    histogram.record(1_000, 3);
+    now += SECONDS.toNanos(30);
+    histogram.record(2_000);
+    assertThat(histogram.count(), equalTo(4L));
+
+    now += SECONDS.toNanos(30);
+    assertThat(histogram.count(), equalTo(1L));
+    assertThat(histogram.percentile(0.0), equalTo(Duration.ofNanos(2_015)));
+
+    now += SECONDS.toNanos(60);
+    assertThat(histogram.count(), equalTo(0L));
+    histogram.record(3_000);
+    assertThat(histogram.count(), equalTo(1L));
+  }
+
+  @Test
+  void countsConcurrentRecords() throws Exception {
+    var histogram = new LatencyHistogram(ticker, Duration.ofMinutes(1));
+    try (var executor = Executors.newFixedThreadPool(8)) {
+      var futures = IntStream.range(0, 8).mapToObj(i -> executor.submit(() -> {
+        for (var j = 0; j < 10_000; j++) {
+          histogram.record(j);
+        }
+      })).toList();
+      for (var future : futures) {
+        future.get();
+      }
+    }
+    assertThat(histogram.count(), equalTo(80_000L));
+  }
+
+  @Test
+  void percentilesIgnoreSlicesClearedWhileReading() throws Exception {
+    var time = new AtomicLong();
+    var window = Duration.ofSeconds(4);
+    var histogram = new LatencyHistogram(time::get, window);
+    var highest = LatencyHistogram.highestValue(LatencyHistogram.index(1_000));
+    var stop = new AtomicBoolean();
+    try (var executor = Executors.newSingleThreadExecutor()) {
+      var recorder = executor.submit(() -> {
+        while (!stop.get()) {
+          // Every record moves on a slice, clearing the oldest one for reuse
+          time.addAndGet(window.toNanos() / 4);
+          histogram.record(1_000, 10);
+        }
+      });
+      try {
+        for (var i = 0; i < 100_000; i++) {
+          assertThat(histogram.percentile(100.0).toNanos(), lessThanOrEqualTo(highest));
+        }
+      } finally {
+        stop.set(true);
+      }
+      recorder.get();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+class SketchThrottleTest {
+  private long now = 0;
+  private final Ticker ticker = () -> now;
+
+  private SketchThrottle<String> rejectAfterFailure() {
+    return Throttle.builder().overhead(1.0).ticker(ticker).randomSource(() -> 1.0).buckets(10).buildSketch(0.01, 0.99);
+  }
+
+  @Test
+  void throttlesEachKeySeparately() {
+    var throttle = rejectAfterFailure();
+    assertThrows(IllegalStateException.class, () -> throttle.attempt("a", () -> {
+      throw new IllegalStateException("fail");
+    }));
+
+    var e = assertThrows(ThrottleException.class, () -> throttle.attempt("a", () -> "should not run"));
+    assertThat(e.failures, equalTo(1L));
+    assertThat(throttle.attempt("b", () -> "ok"), equalTo("ok"));
+  }
+
+  @Test
+  void recoversOnceFailuresLeaveTheWindow() {
+    var throttle = rejectAfterFailure();
+    assertThrows(IllegalStateException.class, () -> throttle.attempt("a", () -> {
+      throw new IllegalStateException("fail");
+    }));
+    now += SECONDS.toNanos(30);
+    assertThrows(ThrottleException.class, () -> throttle.attempt("a", () -> "should not run"));
+
+    // The rejection counts as a failure, so it takes a full window after it
+    now += SECONDS.toNanos(30);
+    assertThrows(ThrottleException.class, () -> throttle.attempt("a", () -> "should not run"));
+    now += SECONDS.toNanos(60);
+    assertThat(throttle.attempt("a", () -> "ok"), equalTo("ok"));
+  }
+
+  @Test
+  void countsSuccessesPerKey() {
+    var random = new double[]{0.99};
+    var throttle = Throttle.builder()
+        .overhead(1.0)
+        .ticker(ticker)
+        .randomSource(() -> random[0])
+        .buckets(10)
+        .<String>buildSketch(0.01, 0.99);
+    throttle.attempt("a", () -> "ok");
+    assertThrows(IllegalStateException.class, () -> throttle.attempt("a", () -> {
+      throw new IllegalStateException("fail");
+    }));
+
+    // With one success and one failure, the ratio is 1.0 * (2.0 / 2.0)
+    assertThat(throttle.attempt("a", () -> "ok"), equalTo("ok"));
+    // A key with only a failure is throttled
+    assertThrows(IllegalStateException.class, () -> throttle.attempt("b", () -> {
+      throw new IllegalStateException("fail");
+    }));
+    random[0] = 1.0;
+    assertThrows(ThrottleException.class, () -> throttle.attempt("b", () -> "should not run"));
+  }
+
+  @Test
+  void validatesConfiguration() {
+    var builder = Throttle.builder();
+    assertThrows(IllegalArgumentException.class, () -> builder.buildSketch(0.0, 0.99));
+    assertThrows(IllegalArgumentException.class, () -> builder.buildSketch(0.01, 1.0));
+    assertThrows(IllegalArgumentException.class, () -> builder.overhead(0.5).buildSketch(0.01, 0.99));
+  }
+}
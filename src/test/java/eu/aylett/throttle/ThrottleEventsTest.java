@@ -0,0 +1,120 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ThrottleEventsTest {
+  @TempDir
+  Path directory;
+
+  @Test
+  void recordsRejectionsAndAttempts() throws Exception {
+    var throttle = Throttle.builder()
+        .name("events-test")
+        .overhead(1.0)
+        .randomSource(() -> 1.0)
+        .build();
+
+    List<RecordedEvent> events;
+    try (var recording = new Recording()) {
+      recording.enable("eu.aylett.throttle.Rejection");
+      recording.enable("eu.aylett.throttle.Attempt");
+      recording.start();
+
+      throttle.attempt(() -> "ok");
+      assertThrows(IllegalStateException.class, () -> throttle.attempt(() -> {
+        throw new IllegalStateException("fail");
+      }));
+      assertThrows(ThrottleException.class, () -> throttle.attempt(() -> "should not run"));
+
+      recording.stop();
+      events = read(recording);
+    }
+
+    var attempts = ofType(events, "eu.aylett.throttle.Attempt");
+    assertThat(attempts, hasSize(2));
+    assertThat(attempts.get(0).getBoolean("success"), equalTo(true));
+    assertThat(attempts.get(1).getBoolean("success"), equalTo(false));
+
+    var rejections = ofType(events, "eu.aylett.throttle.Rejection");
+    assertThat(rejections, hasSize(1));
+    assertThat(rejections.get(0).getString("throttle"), equalTo("events-test"));
+    assertThat(rejections.get(0).getDouble("failures"), equalTo(1.0));
+  }
+
+  @Test
+  void summarisesWindowsPeriodically() throws Exception {
+    var throttle = new Throttle(2.0, Clock.systemUTC(), () -> 1.0);
+    throttle.attempt(() -> "ok");
+
+    List<RecordedEvent> events;
+    try (var recording = new Recording()) {
+      recording.enable("eu.aylett.throttle.Window").withPeriod(Duration.ofMillis(10));
+      recording.start();
+      Thread.sleep(100);
+      recording.stop();
+      events = read(recording);
+    }
+
+    assertThat(ofType(events, "eu.aylett.throttle.Window"), not(empty()));
+  }
+
+  @Test
+  void recordsNothingUnlessEnabled() throws Exception {
+    var throttle = new Throttle(1.0, Clock.systemUTC(), () -> 1.0);
+
+    List<RecordedEvent> events;
+    try (var recording = new Recording()) {
+      recording.start();
+      assertThrows(IllegalStateException.class, () -> throttle.attempt(() -> {
+        throw new IllegalStateException("fail");
+      }));
+      assertThrows(ThrottleException.class, () -> throttle.attempt(() -> "should not run"));
+      recording.stop();
+      events = read(recording);
+    }
+
+    assertThat(events.stream().filter(e -> e.getEventType().getName().startsWith("eu.aylett")).toList(), empty());
+  }
+
+  private List<RecordedEvent> read(Recording recording) throws Exception {
+    var file = directory.resolve("recording.jfr");
+    recording.dump(file);
+    return RecordingFile.readAllEvents(file);
+  }
+
+  private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+    return events.stream().filter(e -> e.getEventType().getName().equals(name)).toList();
+  }
+}
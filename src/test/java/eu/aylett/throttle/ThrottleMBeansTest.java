@@ -0,0 +1,108 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.RuntimeMBeanException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ThrottleMBeansTest {
+  private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+  @Test
+  void exposesAndAdjustsAThrottle() throws Exception {
+    var throttle = Throttle.builder().overhead(1.0).randomSource(() -> 1.0).name("mbean-test").build();
+    throttle.attempt(() -> "ok");
+    assertThrows(IllegalStateException.class, () -> throttle.attempt(() -> {
+      throw new IllegalStateException("fail");
+    }));
+    assertThrows(ThrottleException.class, () -> throttle.attempt(() -> "should not run"));
+
+    var name = ThrottleMBeans.register(throttle);
+    try {
+      assertThat(name, equalTo(new ObjectName("eu.aylett.throttle:type=Throttle,name=\"mbean-test\"")));
+      assertThat(server.getAttribute(name, "WindowSuccesses"), equalTo(1.0));
+      assertThat(server.getAttribute(name, "WindowFailures"), equalTo(2.0));
+      assertThat(server.getAttribute(name, "Admitted"), equalTo(2L));
+      assertThat(server.getAttribute(name, "Rejected"), equalTo(1L));
+      assertThat(server.getAttribute(name, "Succeeded"), equalTo(1L));
+      assertThat(server.getAttribute(name, "Failed"), equalTo(1L));
+
+      // 1.5 * (2.5 / 3.0)
+      server.setAttribute(name, new Attribute("Overhead", 1.5));
+      assertThat(server.getAttribute(name, "Overhead"), equalTo(1.5));
+      assertThat(server.getAttribute(name, "AdmitProbability"), equalTo(1.0));
+      assertThrows(RuntimeMBeanException.class, () -> server.setAttribute(name, new Attribute("Overhead", 0.5)));
+
+      server.invoke(name, "resetWindow", null, null);
+      assertThat(server.getAttribute(name, "WindowFailures"), equalTo(0.0));
+      assertThat(server.getAttribute(name, "Admitted"), equalTo(2L));
+    } finally {
+      ThrottleMBeans.unregister(name);
+    }
+    assertThat(server.isRegistered(name), equalTo(false));
+  }
+
+  @Test
+  void needsANamedThrottle() {
+    assertThrows(IllegalArgumentException.class, () -> ThrottleMBeans.register(new Throttle()));
+  }
+
+  @Test
+  void exposesAndAdjustsARegistry() throws Exception {
+    ThrottleRegistry<String> registry = Throttle.builder()
+        .overhead(1.0)
+        .randomSource(() -> 1.0)
+        .buildRegistry(Duration.ofMinutes(1));
+    var a = registry.get("a");
+    a.attempt(() -> "ok");
+    var b = registry.get("b");
+    assertThrows(IllegalStateException.class, () -> b.attempt(() -> {
+      throw new IllegalStateException("fail");
+    }));
+    assertThrows(ThrottleException.class, () -> b.attempt(() -> "should not run"));
+
+    var name = ThrottleMBeans.register(registry, "mbean-test");
+    try {
+      assertThat(server.getAttribute(name, "Size"), equalTo(2));
+      assertThat(server.getAttribute(name, "Admitted"), equalTo(2L));
+      assertThat(server.getAttribute(name, "Rejected"), equalTo(1L));
+      assertThat(server.getAttribute(name, "WindowSuccesses"), equalTo(1.0));
+      assertThat(server.getAttribute(name, "WindowFailures"), equalTo(2.0));
+      // 1.0 * (1.0 / 2.0), for "b"
+      assertThat(server.getAttribute(name, "LowestAdmitProbability"), equalTo(0.5));
+
+      server.setAttribute(name, new Attribute("Overhead", 3.0));
+      assertThat(a.overhead(), equalTo(3.0));
+      assertThat(registry.get("b").overhead(), equalTo(3.0));
+
+      server.invoke(name, "resetWindows", null, null);
+      assertThat(a.snapshot().successes(), equalTo(0.0));
+    } finally {
+      ThrottleMBeans.unregister(name);
+    }
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+class ThrottleRegistryTest {
+  private long now = 0;
+  private final Ticker ticker = () -> now;
+
+  @Test
+  void createsOneThrottlePerKey() {
+    ThrottleRegistry<String> registry = Throttle.builder().ticker(ticker).buildRegistry(Duration.ofMinutes(1));
+    var a = registry.get("a");
+    assertThat(registry.get("a"), sameInstance(a));
+    assertThat(registry.get("b"), not(sameInstance(a)));
+    assertThat(registry.size(), equalTo(2));
+  }
+
+  @Test
+  void dropsThrottlesOnceIdle() {
+    ThrottleRegistry<String> registry = Throttle.builder().ticker(ticker).buildRegistry(Duration.ofMinutes(1));
+    var a = registry.get("a");
+    a.attempt(() -> "ok");
+
+    // The window has emptied, and the sweep notices
+    now += SECONDS.toNanos(61);
+    registry.get("b");
+    assertThat(registry.size(), equalTo(2));
+
+    // Not yet idle for long enough
+    now += SECONDS.toNanos(31);
+    registry.get("c");
+    assertThat(registry.size(), equalTo(3));
+
+    now += SECONDS.toNanos(30);
+    registry.get("c");
+    assertThat(registry.size(), equalTo(1));
+    assertThat(registry.get("a"), not(sameInstance(a)));
+  }
+
+  @Test
+  void keepsThrottlesInUse() {
+    ThrottleRegistry<String> registry = Throttle.builder().ticker(ticker).buildRegistry(Duration.ofMinutes(1));
+    var a = registry.get("a");
+    for (var i = 0; i < 10; i++) {
+      now += SECONDS.toNanos(30);
+      registry.get("a").attempt(() -> "ok");
+    }
+    assertThat(registry.get("a"), sameInstance(a));
+  }
+
+  @Test
+  void spreadsTheSweepOverLookups() {
+    ThrottleRegistry<Integer> registry = Throttle.builder().ticker(ticker).buildRegistry(Duration.ofMinutes(1));
+    for (var i = 0; i < 100; i++) {
+      registry.get(i);
+    }
+
+    // The first sweep only notes that the windows are empty
+    now += SECONDS.toNanos(31);
+    for (var i = 0; i < 10; i++) {
+      registry.get(0);
+    }
+    now += SECONDS.toNanos(61);
+    registry.get(0);
+    assertThat(registry.size(), lessThan(100));
+    assertThat(registry.size(), greaterThan(50));
+    for (var i = 0; i < 10; i++) {
+      registry.get(0);
+    }
+    assertThat(registry.size(), lessThanOrEqualTo(1));
+  }
+
+  @Test
+  void dropsThrottlesBeyondMaximumSize() {
+    ThrottleRegistry<String> registry = Throttle.builder()
+        .ticker(ticker)
+        .randomSource(() -> 1.0)
+        .buildRegistry(Duration.ofMinutes(1), 2);
+    var a = registry.get("a");
+    assertThrows(IllegalStateException.class, () -> a.attempt(() -> {
+      throw new IllegalStateException("fail");
+    }));
+    registry.get("b");
+
+    // "b" has an empty window, so it makes way rather than "a"
+    var c = registry.get("c");
+    assertThat(registry.size(), equalTo(2));
+    assertThat(registry.get("a"), sameInstance(a));
+    assertThat(registry.get("c"), sameInstance(c));
+  }
+
+  @Test
+  void neverDropsBusyThrottlesToMakeRoom() {
+    ThrottleRegistry<Integer> registry = Throttle.builder()
+        .ticker(ticker)
+        .randomSource(() -> 0.0)
+        .buildRegistry(Duration.ofMinutes(1), 20);
+    // Small integers hash to themselves, so these come first when iterating
+    var busy = new ArrayList<Throttle>();
+    for (var key = 0; key < 20; key++) {
+      var throttle = registry.get(key);
+      for (var i = 0; i < 10; i++) {
+        assertThrows(IllegalStateException.class, () -> throttle.attempt(() -> {
+          throw new IllegalStateException("fail");
+        }));
+      }
+      busy.add(throttle);
+    }
+    var admitProbability = busy.get(0).snapshot().admitProbability();
+    assertThat(admitProbability, lessThan(1.0));
+
+    for (var key = 20; key < 50; key++) {
+      registry.get(key);
+    }
+    for (var key = 0; key < 20; key++) {
+      assertThat(registry.get(key), sameInstance(busy.get(key)));
+    }
+    assertThat(busy.get(0).snapshot().admitProbability(), equalTo(admitProbability));
+    // The new throttles are idle, so they make way for each other
+    assertThat(registry.size(), lessThan(50));
+  }
+
+  @Test
+  void keepsTheTotalsOfDroppedThrottles() {
+    ThrottleRegistry<String> registry = Throttle.builder()
+        .ticker(ticker)
+        .overhead(1.0)
+        .randomSource(() -> 1.0)
+        .buildRegistry(Duration.ofMinutes(1));
+    var a = registry.get("a");
+    assertThrows(IllegalStateException.class, () -> a.attempt(() -> {
+      throw new IllegalStateException("fail");
+    }));
+    assertThrows(ThrottleException.class, () -> a.attempt(() -> "should not run"));
+    registry.get("b").attempt(() -> "ok");
+    assertThat(registry.admitted(), equalTo(2L));
+    assertThat(registry.rejected(), equalTo(1L));
+
+    // Both windows empty, and are seen to have been empty for the timeout
+    now += SECONDS.toNanos(61);
+    registry.get("c");
+    now += SECONDS.toNanos(61);
+    registry.get("c");
+    assertThat(registry.get("a"), not(sameInstance(a)));
+    assertThat(registry.admitted(), equalTo(2L));
+    assertThat(registry.rejected(), equalTo(1L));
+
+    registry.get("c").attempt(() -> "ok");
+    assertThat(registry.admitted(), equalTo(3L));
+  }
+
+  @Test
+  void needsPositiveMaximumSize() {
+    var builder = Throttle.builder();
+    assertThrows(IllegalArgumentException.class, () -> builder.buildRegistry(Duration.ofMinutes(1), 0));
+  }
+
+  @Test
+  void needsPositiveIdleTimeout() {
+    var builder = Throttle.builder();
+    assertThrows(IllegalArgumentException.class, () -> builder.buildRegistry(Duration.ZERO));
+  }
+}
@@ -20,34 +20,49 @@ import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.opentest4j.AssertionFailedError;
 
+import java.lang.management.ManagementFactory;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.InstantSource;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 import java.util.stream.IntStream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.Assume.assumeThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
+
 @SuppressWarnings("UnsecureRandomNumberGeneration")
 class ThrottleTest {
 
@@ -89,6 +104,19 @@ class ThrottleTest {
     assertThrows(ThrottleException.class, () -> throttle.checkedAttempt(() -> "should not run"));
   }
 
+  @Test
+  void rejectionsCanBeStackless() {
+    var throttle = Throttle.builder().overhead(1.0).randomSource(() -> 1.0).rejectionStackTraces(false).build();
+    assertThrows(IllegalStateException.class, () -> throttle.attempt(() -> {
+      throw new IllegalStateException("fail");
+    }));
+
+    var e = assertThrows(ThrottleException.class, () -> throttle.attempt(() -> "should not run"));
+    assertThat(e.getStackTrace().length, equalTo(0));
+    assertThat(e.getMessage(),
+        equalTo("Throttle limit exceeded (in window: 0 successes, 1 failures, allowed ratio 1.0)"));
+  }
+
   private enum Operation {
     SUCCESS, FAILURE, THROTTLE, WAIT,
   }
@@ -101,7 +129,11 @@ class ThrottleTest {
     }
 
     void advanceSeconds() {
-      instant = instant.plusSeconds(61);
+      advance(Duration.ofSeconds(61));
+    }
+
+    void advance(Duration duration) {
+      instant = instant.plus(duration);
     }
 
     @Override
@@ -135,7 +167,7 @@ class ThrottleTest {
       // ignored
     }
 
-    // Advance clock far enough for entries to expire (ThrottleEntry uses 60s delay)
+    // Advance clock far enough for entries to expire (the window is 60s)
     clock.advanceSeconds();
 
     // Next attempt should clear expired entries, so counters reset
@@ -217,6 +249,282 @@ class ThrottleTest {
     assertThrows(ThrottleException.class, () -> throttle.attempt(() -> "should not run"));
   }
 
+  @Test
+  void testAttemptAsyncSuccess() throws Exception {
+    var throttle = new Throttle(1.0, Clock.systemUTC(), () -> 1.0);
+    var result = throttle.attemptAsync(() -> CompletableFuture.completedStage("async"));
+    Assertions.assertEquals("async", result.toCompletableFuture().get());
+  }
+
+  @Test
+  void testAttemptAsyncRecordsOnCompletion() {
+    var throttle = new Throttle(1.0, Clock.systemUTC(), () -> 1.0);
+    var pending = new CompletableFuture<String>();
+    var result = throttle.attemptAsync(() -> pending);
+
+    // Nothing has failed yet, so we're not throttled
+    Assertions.assertEquals("ok", throttle.attempt(() -> "ok"));
+
+    pending.completeExceptionally(new IllegalStateException("fail"));
+    var e = assertThrows(ExecutionException.class, () -> result.toCompletableFuture().get());
+    assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+
+    // Now the failure has been recorded
+    var rejected = throttle.attemptAsync(() -> CompletableFuture.completedStage("should not run"));
+    e = assertThrows(ExecutionException.class, () -> rejected.toCompletableFuture().get());
+    assertThat(e.getCause(), instanceOf(ThrottleException.class));
+  }
+
+  @Test
+  void testAttemptAsyncSupplierThrows() {
+    var throttle = new Throttle(1.0, Clock.systemUTC(), () -> 1.0);
+    var result = throttle.attemptAsync(() -> {
+      throw new IllegalStateException("fail");
+    });
+    var e = assertThrows(ExecutionException.class, () -> result.toCompletableFuture().get());
+    assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+
+    assertThrows(ThrottleException.class, () -> throttle.attempt(() -> "should not run"));
+  }
+
+  @Test
+  void testAttemptAsyncRejectionDoesNotCallSupplier() {
+    var throttle = new Throttle(1.0, Clock.systemUTC(), () -> 1.0);
+    assertThrows(IllegalStateException.class, () -> throttle.attempt(() -> {
+      throw new IllegalStateException("fail");
+    }));
+
+    var called = new boolean[]{false};
+    var result = throttle.attemptAsync(() -> {
+      called[0] = true;
+      return CompletableFuture.completedStage("should not run");
+    });
+    Assertions.assertTrue(result.toCompletableFuture().isCompletedExceptionally());
+    Assertions.assertFalse(called[0]);
+  }
+
+  @Test
+  void testTryAcquireRecordsOutcomes() {
+    var throttle = new Throttle(1.0, Clock.systemUTC(), () -> 1.0);
+    var permit = throttle.tryAcquire();
+    Assertions.assertNotNull(permit);
+    permit.recordSuccess();
+
+    // Nothing has failed yet, so we're not throttled
+    permit = throttle.tryAcquire();
+    Assertions.assertNotNull(permit);
+    permit.recordFailure();
+
+    Assertions.assertNull(throttle.tryAcquire());
+    assertThrows(ThrottleException.class, () -> throttle.attempt(() -> "should not run"));
+  }
+
+  @Test
+  void testTryAcquireRejectionCountsAsFailure() {
+    var random = new double[]{1.0};
+    var throttle = new Throttle(1.0, Clock.systemUTC(), () -> random[0]);
+    assertThrows(IllegalStateException.class, () -> throttle.attempt(() -> {
+      throw new IllegalStateException("fail");
+    }));
+    Assertions.assertNull(throttle.tryAcquire());
+
+    // With two failures and no successes, the ratio is 1.0 * (1.0 / 2.0)
+    random[0] = 0.51;
+    Assertions.assertNull(throttle.tryAcquire());
+    // And after another rejection, 1.0 * (1.0 / 3.0)
+    random[0] = 0.3;
+    var permit = throttle.tryAcquire();
+    Assertions.assertNotNull(permit);
+    permit.recordSuccess();
+  }
+
+  @Test
+  void testBatchAdmitsEverythingWithoutFailures() {
+    var throttle = new Throttle(1.0, Clock.systemUTC(), () -> 1.0);
+    var batch = throttle.tryAcquire(200);
+    assertThat(batch.admitted(), equalTo(200));
+    batch.record(200, 0);
+    Assertions.assertNotNull(throttle.tryAcquire());
+  }
+
+  @Test
+  void testBatchAdmitsProportionOfAttempts() {
+    var random = new double[]{0.99};
+    var throttle = new Throttle(2.0, Clock.systemUTC(), () -> random[0]);
+    var batch = throttle.tryAcquire(10);
+    batch.record(2, 8);
+
+    // With two successes and eight failures, the ratio is 2.0 * (4.0 / 10.0)
+    batch = throttle.tryAcquire(10);
+    assertThat(batch.admitted(), equalTo(8));
+    // The two rejections count as failures, so now it's 2.0 * (4.0 / 12.0)
+    random[0] = 0.0;
+    batch = throttle.tryAcquire(10);
+    assertThat(batch.admitted(), equalTo(7));
+
+    var finalBatch = batch;
+    assertThrows(IllegalArgumentException.class, () -> finalBatch.record(7, 1));
+  }
+
+  @Test
+  void testBatchOutcomesCannotExceedAdmitted() {
+    var throttle = new Throttle(1.0, Clock.systemUTC(), () -> 1.0);
+    var batch = throttle.tryAcquire(3);
+    batch.record(1, 0);
+    batch.record(0, 1);
+    assertThrows(IllegalArgumentException.class, () -> batch.record(1, 1));
+    batch.record(1, 0);
+    assertThrows(IllegalArgumentException.class, () -> batch.record(0, 1));
+    assertThat(throttle.snapshot().succeeded(), equalTo(2L));
+    assertThat(throttle.snapshot().failed(), equalTo(1L));
+  }
+
+  @Test
+  void testPrimitiveAttempts() {
+    var throttle = new Throttle(1.0, Clock.systemUTC(), () -> 1.0);
+    assertThat(throttle.attemptAsInt(() -> 42), equalTo(42));
+    assertThat(throttle.attemptAsLong(() -> 42L), equalTo(42L));
+    assertThat(throttle.attemptAsDouble(() -> 4.2), equalTo(4.2));
+
+    var fail = throttle.wrapIntOperator(i -> {
+      throw new IllegalStateException("fail");
+    });
+    assertThrows(IllegalStateException.class, () -> fail.applyAsInt(1));
+    assertThrows(ThrottleException.class, () -> throttle.attemptAsInt(() -> 42));
+  }
+
+  @Test
+  void wrapKeepsTheShapeOfItsLambda() {
+    var throttle = new Throttle(1.0, Clock.systemUTC(), () -> 1.0);
+    Supplier<Integer> supplier = throttle.wrap(() -> 42);
+    Function<String, String> function = throttle.wrap(s -> s + "!");
+    assertThat(supplier.get(), equalTo(42));
+    assertThat(function.apply("ok"), equalTo("ok!"));
+  }
+
+  @Test
+  void testSnapshot() {
+    var draws = new int[]{0};
+    var throttle = new Throttle(1.0, Clock.systemUTC(), () -> {
+      draws[0]++;
+      return 1.0;
+    });
+    throttle.attempt(() -> "ok");
+    assertThrows(IllegalStateException.class, () -> throttle.attempt(() -> {
+      throw new IllegalStateException("fail");
+    }));
+    assertThrows(ThrottleException.class, () -> throttle.attempt(() -> "should not run"));
+    var drawsBefore = draws[0];
+
+    var snapshot = throttle.snapshot();
+    assertThat(snapshot.successes(), equalTo(1.0));
+    assertThat(snapshot.failures(), equalTo(2.0));
+    // 1.0 * (2.0 / 3.0)
+    assertThat(snapshot.admitProbability(), closeTo(2.0 / 3.0, 1e-9));
+    assertThat(snapshot.admitted(), equalTo(2L));
+    assertThat(snapshot.rejected(), equalTo(1L));
+    assertThat(snapshot.succeeded(), equalTo(1L));
+    assertThat(snapshot.failed(), equalTo(1L));
+    assertThat(List.of(throttle.admitted(), throttle.rejected(), throttle.succeeded(), throttle.failed()),
+        contains(2L, 1L, 1L, 1L));
+    assertThat(draws[0], equalTo(drawsBefore));
+    assertThat(throttle.snapshot(), equalTo(snapshot));
+
+    assertThat(new Throttle().snapshot().admitProbability(), equalTo(1.0));
+  }
+
+  @Test
+  void recentSnapshotShowsTheWindowOfTheLastDecision() {
+    var clock = new DummyClock(Instant.parse("2024-01-01T00:00:00Z"));
+    var throttle = new Throttle(1.0, clock, () -> 1.0);
+    throttle.attempt(() -> "ok");
+    assertThrows(IllegalStateException.class, () -> throttle.attempt(() -> {
+      throw new IllegalStateException("fail");
+    }));
+    assertThat(throttle.recentSnapshot(), equalTo(throttle.snapshot()));
+
+    // Nothing has expired the window since, unlike a full snapshot
+    clock.advanceSeconds();
+    assertThat(throttle.snapshot().failures(), equalTo(0.0));
+    var recent = throttle.recentSnapshot();
+    assertThat(recent.successes(), equalTo(1.0));
+    assertThat(recent.failures(), equalTo(1.0));
+    assertThat(recent.admitted(), equalTo(2L));
+
+    throttle.attempt(() -> "ok");
+    assertThat(throttle.recentSnapshot(), equalTo(throttle.snapshot()));
+  }
+
+  @Test
+  void testListenerSeesDecisionsAndOutcomes() {
+    var now = new long[]{0};
+    var random = new double[]{0.99};
+    var events = new ArrayList<String>();
+    var throttle = Throttle.builder()
+        .overhead(1.0)
+        .ticker(() -> now[0])
+        .randomSource(() -> random[0])
+        .listener(new RecordingListener(events))
+        .build();
+
+    throttle.attempt(() -> {
+      now[0] += 5;
+      return "ok";
+    });
+    for (var i = 0; i < 2; i++) {
+      assertThrows(IllegalStateException.class, () -> throttle.attempt(() -> {
+        now[0] += 7;
+        throw new IllegalStateException("fail");
+      }));
+    }
+    random[0] = 1.0;
+    assertThrows(ThrottleException.class, () -> throttle.attempt(() -> "should not run"));
+    Assertions.assertNull(throttle.tryAcquire());
+
+    assertThat(events, contains("admitted 1.0", "succeeded 5", "admitted 1.0", "failed 7", "admitted 1.0", "failed 7",
+        // 1.0 * (2.0 / 3.0), then 1.0 * (2.0 / 4.0)
+        "rejected 0.667", "rejected 0.5"));
+  }
+
+  @Test
+  void testPermitOutcomesHaveUnknownLatency() {
+    var events = new ArrayList<String>();
+    var throttle = Throttle.builder().listener(new RecordingListener(events)).build();
+    var permit = throttle.tryAcquire();
+    Assertions.assertNotNull(permit);
+    permit.recordSuccess();
+    assertThat(events, contains("admitted 1.0", "succeeded " + ThrottleListener.UNKNOWN_LATENCY));
+  }
+
+  @Test
+  void testLatencyHistogram() throws Exception {
+    var now = new long[]{0};
+    var throttle = Throttle.builder().ticker(() -> now[0]).latencyHistogram(true).build();
+    throttle.checkedAttempt(() -> {
+      now[0] += 1_000;
+      return "ok";
+    });
+    assertThrows(IllegalStateException.class, () -> throttle.attempt(() -> {
+      now[0] += 3_000;
+      throw new IllegalStateException("fail");
+    }));
+    var batch = throttle.tryAcquire(2);
+    now[0] += 2_000;
+    batch.record(2, 0);
+    var permit = throttle.tryAcquire();
+    Assertions.assertNotNull(permit);
+    permit.recordSuccess();
+
+    var latencies = throttle.latencies();
+    Assertions.assertNotNull(latencies);
+    assertThat(latencies.count(), equalTo(4L));
+    assertThat(latencies.percentile(25.0), equalTo(Duration.ofNanos(1_007)));
+    assertThat(latencies.percentile(75.0), equalTo(Duration.ofNanos(2_015)));
+    assertThat(latencies.percentile(100.0), equalTo(Duration.ofNanos(3_007)));
+
+    Assertions.assertNull(new Throttle().latencies());
+  }
+
   @Test
   void testWrapRunnable() {
     var throttle = new Throttle();
@@ -312,6 +620,194 @@ class ThrottleTest {
     assertThrows(ThrottleException.class, wrappedSupplier::get);
   }
 
+  @Test
+  void primitiveAttemptsDoNotBox() {
+    var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+    var throttle = Throttle.builder().window(WindowType.BUCKETED).randomSource(new Random(42)::nextDouble).build();
+    // Results too big for the boxing caches, so that boxing them would allocate
+    LongSupplier supplier = () -> 1_000_000L;
+    ToLongFunction<String> function = throttle.wrapToLong(s -> 1_000_000L + s.length());
+    var operator = throttle.wrapIntOperator(i -> i * 1000);
+
+    var iterations = 100_000;
+    var total = 0L;
+    for (var i = 0; i < iterations; i++) {
+      total += throttle.attemptAsLong(supplier);
+      total += function.applyAsLong("ok");
+      total += operator.applyAsInt(i);
+    }
+
+    var threadId = Thread.currentThread().threadId();
+    var before = threads.getThreadAllocatedBytes(threadId);
+    for (var i = 0; i < iterations; i++) {
+      total += throttle.attemptAsLong(supplier);
+      total += function.applyAsLong("ok");
+      total += operator.applyAsInt(i);
+    }
+    var allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+    assertThat(total, greaterThan(0L));
+    assertThat(allocated, lessThan((long) iterations));
+  }
+
+  @Test
+  void decayingThrottleRecovers() {
+    var clock = new DummyClock(Instant.parse("2024-01-01T00:00:00Z"));
+    var throttle = new Throttle(1.0, Duration.ofSeconds(10), clock, () -> 1.0);
+    Runnable fail = () -> {
+      throw new IllegalStateException("fail");
+    };
+
+    assertThrows(IllegalStateException.class, () -> throttle.attempt(fail));
+    assertThrows(ThrottleException.class, () -> throttle.attempt(() -> "should not run"));
+
+    // After several half-lives, the failures barely count and a single success
+    // opens the throttle up again
+    clock.advanceSeconds();
+    Assertions.assertEquals("ok", throttle.attempt(() -> "ok"));
+    Assertions.assertEquals("ok", throttle.attempt(() -> "ok"));
+  }
+
+  @Test
+  void needsPositiveHalfLife() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new Throttle(2.0, Duration.ZERO, Clock.systemUTC(), () -> 1.0));
+  }
+
+  @Test
+  void bucketedAttemptsDoNotAllocate() throws Exception {
+    var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+    // The default ticker, as in production: a fixed clock would hide any per-call
+    // allocation made reading the time
+    var throttle = Throttle.builder().window(WindowType.BUCKETED).randomSource(new Random(42)::nextDouble).build();
+    Callable<String> callable = () -> "ok";
+    Runnable runnable = () -> {
+    };
+    Supplier<String> supplier = () -> "ok";
+    Function<String, String> function = throttle.wrap(s -> s);
+
+    var iterations = 100_000;
+    for (var i = 0; i < iterations; i++) {
+      throttle.checkedAttempt(callable);
+      throttle.attempt(runnable);
+      throttle.attempt(supplier);
+      function.apply("ok");
+    }
+
+    var threadId = Thread.currentThread().threadId();
+    var before = threads.getThreadAllocatedBytes(threadId);
+    for (var i = 0; i < iterations; i++) {
+      throttle.checkedAttempt(callable);
+      throttle.attempt(runnable);
+      throttle.attempt(supplier);
+      function.apply("ok");
+    }
+    var allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+    // Allow a little slack for the measurement itself, but nothing per attempt
+    assertThat(allocated, lessThan((long) iterations));
+  }
+
+  @ParameterizedTest
+  @EnumSource(WindowType.class)
+  void builderConfiguresWindowLength(WindowType windowType) {
+    var now = new long[]{0};
+    var throttle = Throttle.builder()
+        .overhead(1.0)
+        .window(windowType)
+        .windowLength(Duration.ofSeconds(10))
+        .buckets(10)
+        .ticker(() -> now[0])
+        .randomSource(() -> 1.0)
+        .build();
+
+    assertThrows(IllegalStateException.class, () -> throttle.attempt(() -> {
+      throw new IllegalStateException("fail");
+    }));
+    assertThrows(ThrottleException.class, () -> throttle.attempt(() -> "should not run"));
+
+    // Long after a minute-long window would still be throttling, a ten-second one
+    // has forgotten the failures
+    now[0] += SECONDS.toNanos(40);
+    Assertions.assertEquals("ok", throttle.attempt(() -> "ok"));
+  }
+
+  @Test
+  void builderDefaultsMatchConstructor() {
+    var constructed = new Throttle();
+    var built = Throttle.builder().build();
+    // With one success, the first five failures are admitted whatever random
+    // number is drawn
+    for (var throttle : List.of(constructed, built)) {
+      throttle.attempt(() -> "ok");
+      for (var i = 0; i < 5; i++) {
+        assertThrows(IllegalStateException.class, () -> throttle.attempt(() -> {
+          throw new IllegalStateException("fail");
+        }));
+      }
+    }
+    Assertions.assertEquals(constructed.snapshot(), built.snapshot());
+  }
+
+  @Test
+  void builderDefaultsMatchConstructorOverTime() {
+    var constructedClock = new DummyClock(Instant.parse("2024-01-01T00:00:00Z"));
+    var builtClock = new DummyClock(Instant.parse("2024-01-01T00:00:00Z"));
+    var constructed = new Throttle(2.0, constructedClock, new Random(42)::nextDouble);
+    var built = Throttle.builder().ticker(Ticker.of(builtClock)).randomSource(new Random(42)::nextDouble).build();
+    var operations = new Random(7);
+    for (var i = 0; i < 500; i++) {
+      var operation = operations.nextInt(10);
+      if (operation == 0) {
+        var step = Duration.ofSeconds(operations.nextInt(20));
+        constructedClock.advance(step);
+        builtClock.advance(step);
+        continue;
+      }
+      var success = operation < 4;
+      Assertions.assertEquals(outcome(constructed, success), outcome(built, success), "attempt " + i);
+      Assertions.assertEquals(constructed.snapshot(), built.snapshot(), "attempt " + i);
+    }
+  }
+
+  private static String outcome(Throttle throttle, boolean success) {
+    try {
+      return throttle.attempt(() -> {
+        if (!success) {
+          throw new IllegalStateException("fail");
+        }
+        return "ok";
+      });
+    } catch (ThrottleException e) {
+      return "rejected";
+    } catch (IllegalStateException e) {
+      return "failed";
+    }
+  }
+
+  @Test
+  void rejectionsCaptureStackTracesByDefault() {
+    var throttle = Throttle.builder().overhead(1.0).randomSource(() -> 1.0).build();
+    assertThrows(IllegalStateException.class, () -> throttle.attempt(() -> {
+      throw new IllegalStateException("fail");
+    }));
+    var e = assertThrows(ThrottleException.class, () -> throttle.attempt(() -> "should not run"));
+    assertThat(e.getStackTrace().length, greaterThan(0));
+  }
+
+  @Test
+  void builderValidatesConfiguration() {
+    var builder = Throttle.builder();
+    assertThrows(IllegalArgumentException.class, () -> builder.windowLength(Duration.ZERO));
+    assertThrows(IllegalArgumentException.class, () -> builder.buckets(0));
+    assertThrows(IllegalArgumentException.class, () -> builder.halfLife(Duration.ofSeconds(-1)));
+    assertThrows(IllegalArgumentException.class, () -> builder.overhead(0.5).build());
+  }
+
   @Test
   void needsOverheadMoreThanOne() {
     assertThrows(IllegalArgumentException.class, () -> new Throttle(0.5, Clock.systemUTC(), () -> 1.0));
@@ -387,8 +883,9 @@ class ThrottleTest {
     }
   }
 
-  @Test
-  void chainOfAttempts() {
+  @ParameterizedTest
+  @EnumSource(value = WindowType.class, names = {"EXACT", "BUCKETED"})
+  void chainOfAttempts(WindowType windowType) {
     var operations = List.of(Operation.SUCCESS, Operation.SUCCESS, Operation.WAIT, Operation.SUCCESS, Operation.SUCCESS,
         Operation.WAIT, Operation.SUCCESS, Operation.SUCCESS, Operation.WAIT, Operation.FAILURE, Operation.SUCCESS,
         Operation.SUCCESS, Operation.WAIT,
@@ -401,19 +898,20 @@ class ThrottleTest {
         Operation.THROTTLE, Operation.THROTTLE, Operation.THROTTLE, Operation.THROTTLE, Operation.WAIT,
         Operation.THROTTLE, Operation.SUCCESS, Operation.THROTTLE, Operation.SUCCESS);
 
-    runOperations(operations);
+    runOperations(windowType, operations);
   }
 
-  @Test
-  void recoversFromFailures() {
+  @ParameterizedTest
+  @EnumSource(value = WindowType.class, names = {"EXACT", "BUCKETED"})
+  void recoversFromFailures(WindowType windowType) {
     var operations = List.of(Operation.FAILURE, Operation.FAILURE, Operation.FAILURE, Operation.FAILURE,
         Operation.FAILURE, Operation.FAILURE, Operation.FAILURE, Operation.FAILURE, Operation.THROTTLE, Operation.WAIT,
         Operation.WAIT, Operation.WAIT, Operation.WAIT, Operation.SUCCESS, Operation.SUCCESS, Operation.SUCCESS,
         Operation.SUCCESS, Operation.SUCCESS);
-    runOperations(operations);
+    runOperations(windowType, operations);
   }
 
-  private static void runOperations(List<@NotNull Operation> operations) {
+  private static void runOperations(WindowType windowType, List<@NotNull Operation> operations) {
     var clock = mock(InstantSource.class);
 
     var instantAnswer = new Answer<Instant>() {
@@ -431,7 +929,7 @@ class ThrottleTest {
 
     when(clock.instant()).thenAnswer(instantAnswer);
 
-    var throttle = new Throttle(2.0, clock, new Random(42)::nextDouble);
+    var throttle = new Throttle(2.0, windowType, clock, new Random(42)::nextDouble);
 
     var assertAttempted = throttle.wrap(() -> {
     });
@@ -458,4 +956,30 @@ class ThrottleTest {
       i++;
     }
   }
+
+  private record RecordingListener(List<String> events) implements ThrottleListener {
+    @Override
+    public void admitted(double admitProbability) {
+      events.add("admitted " + round(admitProbability));
+    }
+
+    @Override
+    public void rejected(double admitProbability) {
+      events.add("rejected " + round(admitProbability));
+    }
+
+    @Override
+    public void succeeded(long nanos) {
+      events.add("succeeded " + nanos);
+    }
+
+    @Override
+    public void failed(long nanos) {
+      events.add("failed " + nanos);
+    }
+
+    private static double round(double value) {
+      return Math.round(value * 1000) / 1000.0;
+    }
+  }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+class ThrottledExecutorServiceTest {
+  @Test
+  void rejectsTasksAtSubmission() throws Exception {
+    var throttle = new Throttle(1.0, Clock.systemUTC(), () -> 1.0);
+    runAndWait(throttle, executor -> {
+      var future = executor.submit(() -> {
+        throw new IllegalStateException("fail");
+      });
+      var e = assertThrows(ExecutionException.class, future::get);
+      assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+    });
+
+    var ran = new AtomicBoolean();
+    runAndWait(throttle, executor -> {
+      var e = assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> ran.set(true)));
+      assertThat(e.getCause(), instanceOf(ThrottleException.class));
+      assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> ran.set(true)));
+    });
+    assertThat(ran.get(), is(false));
+  }
+
+  @Test
+  void recordsOutcomesWhenTasksComplete() throws Exception {
+    var throttle = new Throttle(1.0, Clock.systemUTC(), () -> 0.5);
+    runAndWait(throttle, executor -> {
+      executor.execute(() -> {
+      });
+      for (var i = 0; i < 2; i++) {
+        var future = executor.submit(() -> {
+          throw new IllegalStateException("fail");
+        });
+        assertThrows(ExecutionException.class, future::get);
+      }
+    });
+
+    // With one success and two failures, the ratio is 1.0 * (2.0 / 3.0)
+    runAndWait(throttle, executor -> {
+      assertThat(executor.submit(() -> "ok").get(), equalTo("ok"));
+    });
+  }
+
+  @Test
+  void recordsOutcomesBeforeWaitersSeeThem() throws Exception {
+    var throttle = new Throttle(1.0, Clock.systemUTC(), () -> 1.0);
+    runAndWait(throttle, executor -> {
+      assertThat(executor.submit(() -> "ok").get(), equalTo("ok"));
+      assertThat(throttle.snapshot().succeeded(), equalTo(1L));
+      var future = executor.submit(() -> {
+        throw new IllegalStateException("fail");
+      });
+      assertThrows(ExecutionException.class, future::get);
+      assertThat(throttle.snapshot().failed(), equalTo(1L));
+    });
+  }
+
+  @Test
+  void undoesAdmissionWhenTheDelegateRejects() {
+    var throttle = new Throttle(2.0, Clock.systemUTC(), () -> 1.0);
+    var delegate = Executors.newSingleThreadExecutor();
+    delegate.shutdown();
+    var executor = new ThrottledExecutorService(throttle, delegate);
+
+    assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+    }));
+    assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> "ok"));
+    // A full or closed delegate says nothing about the dependency
+    var snapshot = throttle.snapshot();
+    assertThat(snapshot.admitted(), equalTo(0L));
+    assertThat(snapshot.failed(), equalTo(0L));
+    assertThat(snapshot.failures(), equalTo(0.0));
+    assertThat(snapshot.admitProbability(), equalTo(1.0));
+  }
+
+  /**
+   * Run some tasks, then wait for every outcome to be recorded.
+   */
+  private static void runAndWait(Throttle throttle, ExecutorAction action) throws Exception {
+    var executor = new ThrottledExecutorService(throttle, Executors.newSingleThreadExecutor());
+    try {
+      action.run(executor);
+    } finally {
+      executor.shutdown();
+      assertThat(executor.awaitTermination(10, SECONDS), is(true));
+    }
+  }
+
+  @FunctionalInterface
+  private interface ExecutorAction {
+    void run(ThrottledExecutorService executor) throws Exception;
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+class ThrottledProcessorTest {
+  @Test
+  void deliversResultsOnDemand() {
+    var processor = new ThrottledProcessor<Integer, Integer>(new Throttle(),
+        i -> CompletableFuture.completedStage(i * 2));
+    var subscriber = new CollectingSubscriber<Integer>(2);
+    processor.subscribe(subscriber);
+
+    try (var publisher = new SubmissionPublisher<Integer>(Runnable::run, 16)) {
+      publisher.subscribe(processor);
+      for (var i = 1; i <= 5; i++) {
+        publisher.submit(i);
+      }
+      assertThat(subscriber.received, contains(2, 4));
+
+      subscriber.request(3);
+      assertThat(subscriber.received, contains(2, 4, 6, 8, 10));
+      assertThat(subscriber.completed, is(false));
+    }
+    assertThat(subscriber.completed, is(true));
+  }
+
+  @Test
+  void shedsRejectedElements() {
+    var throttle = new Throttle(1.0, WindowType.EXACT, Clock.systemUTC(), () -> 1.0);
+    var calls = new ArrayList<Integer>();
+    var processor = new ThrottledProcessor<Integer, Integer>(throttle, i -> {
+      calls.add(i);
+      return i == 1 ? CompletableFuture.failedStage(new IllegalStateException("fail"))
+          : CompletableFuture.completedStage(i);
+    });
+    var subscriber = new CollectingSubscriber<Integer>(1);
+    processor.subscribe(subscriber);
+
+    try (var publisher = new SubmissionPublisher<Integer>(Runnable::run, 16)) {
+      publisher.subscribe(processor);
+      for (var i = 1; i <= 5; i++) {
+        publisher.submit(i);
+      }
+      // The first call failed, and then the throttle rejected everything else
+      assertThat(calls, contains(1));
+      assertThat(subscriber.received, is(empty()));
+      assertThat(publisher.estimateMaximumLag(), is(0));
+    }
+    assertThat(subscriber.completed, is(true));
+  }
+
+  @Test
+  void supportsOnlyOneSubscriber() {
+    var processor = new ThrottledProcessor<Integer, Integer>(new Throttle(), CompletableFuture::completedStage);
+    processor.subscribe(new CollectingSubscriber<>(1));
+
+    var second = new CollectingSubscriber<Integer>(1);
+    processor.subscribe(second);
+    assertThat(second.error, instanceOf(IllegalStateException.class));
+  }
+
+  @Test
+  void signalsErrorForNonPositiveRequest() {
+    var processor = new ThrottledProcessor<Integer, Integer>(new Throttle(), CompletableFuture::completedStage);
+    var subscriber = new CollectingSubscriber<Integer>(0);
+    processor.subscribe(subscriber);
+
+    subscriber.request(0);
+    assertThat(subscriber.error, instanceOf(IllegalArgumentException.class));
+  }
+
+  private static final class CollectingSubscriber<T> implements Flow.Subscriber<T> {
+    final List<T> received = new ArrayList<>();
+    final long initialRequest;
+    Flow.@Nullable Subscription subscription;
+    @Nullable
+    Throwable error;
+    boolean completed;
+
+    CollectingSubscriber(long initialRequest) {
+      this.initialRequest = initialRequest;
+    }
+
+    void request(long n) {
+      var s = subscription;
+      if (s != null) {
+        s.request(n);
+      }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (initialRequest > 0) {
+        subscription.request(initialRequest);
+      }
+    }
+
+    @Override
+    public void onNext(T item) {
+      received.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+class TickerTest {
+  @Test
+  void adaptsInstantSource() {
+    var clock = Clock.fixed(Instant.parse("2024-01-01T00:00:00.123456789Z"), ZoneId.of("UTC"));
+    assertThat(Ticker.of(clock).read(), equalTo(1_704_067_200_123_456_789L));
+  }
+
+  @Test
+  void systemTickerMovesForwards() {
+    var ticker = Ticker.system();
+    var first = ticker.read();
+    assertThat(ticker.read(), greaterThanOrEqualTo(first));
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle.micrometer;
+
+import eu.aylett.throttle.Throttle;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes a throttle's decisions, outcomes and window as meters, tagged with
+ * the throttle's name.
+ * <p>
+ * The counters are {@code throttle.admitted}, {@code throttle.rejected},
+ * {@code throttle.succeeded} and {@code throttle.failed}; the gauges are
+ * {@code throttle.window.successes}, {@code throttle.window.failures} and
+ * {@code throttle.admit.probability}.
+ * </p>
+ * <p>
+ * The counters read the throttle's lifetime totals, which doesn't touch the
+ * window. The gauges read {@link Throttle#recentSnapshot()}, which doesn't
+ * take any lock that attempts need, whatever the window type, and share one
+ * snapshot between them for up to 100 ms. The window they report is the one the
+ * throttle last decided on, so a throttle that's stopped seeing attempts keeps
+ * reporting its last window. Scraping doesn't expire anything from the window
+ * or draw random numbers, so it has no effect on the throttle's decisions. The
+ * meters hold the throttle weakly, as Micrometer does by default, so binding it
+ * doesn't keep it alive.
+ * </p>
+ */
+public final class ThrottleMetrics implements MeterBinder {
+  private static final long SNAPSHOT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final Throttle throttle;
+  private final Tags tags;
+  private final Snapshots snapshots = new Snapshots();
+
+  /**
+   * Metrics for a throttle, tagged with its name.
+   *
+   * @param throttle
+   *          the throttle, which must have been built with a name
+   */
+  public ThrottleMetrics(Throttle throttle) {
+    this(throttle, Tags.empty());
+  }
+
+  /**
+   * Metrics for a throttle, tagged with its name and the given tags.
+   *
+   * @param throttle
+   *          the throttle, which must have been built with a name
+   * @param tags
+   *          extra tags to add to every meter
+   */
+  public ThrottleMetrics(Throttle throttle, Iterable<Tag> tags) {
+    var name = throttle.name();
+    if (name == null) {
+      // Unnamed throttles would share meters, and only the first would be reported
+      throw new IllegalArgumentException("Throttle must have a name to tell its metrics apart");
+    }
+    this.throttle = throttle;
+    this.tags = Tags.concat(tags, "name", name);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    counter(registry, "throttle.admitted", "Attempts let through", Throttle::admitted);
+    counter(registry, "throttle.rejected", "Attempts rejected", Throttle::rejected);
+    counter(registry, "throttle.succeeded", "Attempts let through that succeeded", Throttle::succeeded);
+    counter(registry, "throttle.failed", "Attempts let through that failed", Throttle::failed);
+    gauge(registry, "throttle.window.successes", "Successful attempts in the window",
+        Throttle.Snapshot::successes);
+    gauge(registry, "throttle.window.failures", "Failed attempts in the window, including rejections",
+        Throttle.Snapshot::failures);
+    gauge(registry, "throttle.admit.probability", "Probability that the next attempt will be let through",
+        Throttle.Snapshot::admitProbability);
+  }
+
+  private void counter(MeterRegistry registry, String name, String description, ToLongFunction<Throttle> total) {
+    FunctionCounter.builder(name, throttle, total::applyAsLong)
+        .description(description)
+        .tags(tags)
+        .register(registry);
+  }
+
+  private void gauge(MeterRegistry registry, String name, String description,
+      ToDoubleFunction<Throttle.Snapshot> value) {
+    // Only capture the snapshots, not this binder, which holds the throttle
+    // strongly
+    var shared = snapshots;
+    Gauge.builder(name, throttle, t -> value.applyAsDouble(shared.read(t)))
+        .description(description)
+        .tags(tags)
+        .register(registry);
+  }
+
+  /**
+   * The latest snapshot, shared by the gauges so that one scrape doesn't take a
+   * snapshot for each of them.
+   */
+  private static final class Snapshots {
+    private final AtomicReference<@Nullable Taken> latest = new AtomicReference<>();
+
+    Throttle.Snapshot read(Throttle throttle) {
+      var now = System.nanoTime();
+      var taken = latest.get();
+      if (taken != null && now - taken.nanos() < SNAPSHOT_NANOS) {
+        return taken.snapshot();
+      }
+      var snapshot = throttle.recentSnapshot();
+      latest.set(new Taken(snapshot, now));
+      return snapshot;
+    }
+  }
+
+  private record Taken(Throttle.Snapshot snapshot, long nanos) {
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Publishes the state of a {@link eu.aylett.throttle.Throttle} as Micrometer
+ * meters.
+ * <p>
+ * Bind a {@link eu.aylett.throttle.micrometer.ThrottleMetrics} to a registry
+ * for each named throttle. The meters read the throttle's state when they're
+ * scraped, so there's nothing to update on the request path.
+ * </p>
+ */
+@NullMarked
+package eu.aylett.throttle.micrometer;
+
+import org.jspecify.annotations.NullMarked;
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle.micrometer;
+
+import eu.aylett.throttle.Throttle;
+import eu.aylett.throttle.ThrottleException;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ThrottleMetricsTest {
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @Test
+  void reportsDecisionsOutcomesAndWindow() {
+    var throttle = Throttle.builder().overhead(1.0).randomSource(() -> 1.0).name("db").build();
+    new ThrottleMetrics(throttle, Tags.of("region", "eu")).bindTo(registry);
+
+    throttle.attempt(() -> "ok");
+    assertThrows(IllegalStateException.class, () -> throttle.attempt(() -> {
+      throw new IllegalStateException("fail");
+    }));
+    assertThrows(ThrottleException.class, () -> throttle.attempt(() -> "should not run"));
+
+    assertThat(counter("throttle.admitted"), equalTo(2.0));
+    assertThat(counter("throttle.rejected"), equalTo(1.0));
+    assertThat(counter("throttle.succeeded"), equalTo(1.0));
+    assertThat(counter("throttle.failed"), equalTo(1.0));
+    assertThat(gauge("throttle.window.successes"), equalTo(1.0));
+    assertThat(gauge("throttle.window.failures"), equalTo(2.0));
+    // 1.0 * (2.0 / 3.0)
+    assertThat(gauge("throttle.admit.probability"), closeTo(2.0 / 3.0, 1e-9));
+  }
+
+  @Test
+  void scrapingDoesNotChangeTheThrottle() {
+    var throttle = Throttle.builder().name("db").build();
+    new ThrottleMetrics(throttle).bindTo(registry);
+    throttle.attempt(() -> "ok");
+
+    var before = throttle.snapshot();
+    for (var i = 0; i < 10; i++) {
+      registry.getMeters().forEach(meter -> meter.measure().forEach(measurement -> measurement.getValue()));
+    }
+    assertThat(throttle.snapshot(), equalTo(before));
+  }
+
+  @Test
+  void needsANamedThrottle() {
+    var throttle = Throttle.builder().build();
+    assertThrows(IllegalArgumentException.class, () -> new ThrottleMetrics(throttle));
+  }
+
+  private double counter(String name) {
+    return registry.get(name).tags("name", "db", "region", "eu").functionCounter().count();
+  }
+
+  private double gauge(String name) {
+    return registry.get(name).tags("name", "db", "region", "eu").gauge().value();
+  }
+}
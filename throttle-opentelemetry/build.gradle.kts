@@ -0,0 +1,75 @@
+@file:Suppress("UnstableApiUsage")
+
+import okio.ByteString.Companion.decodeBase64
+
+plugins {
+  `java-library`
+  `jvm-test-suite`
+  `maven-publish`
+  signing
+  id("eu.aylett.conventions")
+}
+
+group = "eu.aylett"
+
+version = rootProject.version
+
+repositories {
+  // Use Maven Central for resolving dependencies.
+  mavenCentral()
+}
+
+dependencies {
+  api(project(":"))
+  api(libs.opentelemetry.api)
+  implementation(libs.jspecify)
+  testImplementation(libs.hamcrest)
+  testImplementation(libs.opentelemetry.sdk.testing)
+}
+
+java {
+  withSourcesJar()
+  withJavadocJar()
+}
+
+testing {
+  suites {
+    @Suppress("unused")
+    val test by getting(JvmTestSuite::class) { useJUnitJupiter(libs.versions.junit) }
+  }
+}
+
+aylett { jvm { jvmVersion = 21 } }
+
+publishing.publications {
+  @Suppress("unused")
+  val mavenJava by
+      creating(MavenPublication::class) {
+        from(components["java"])
+        pom {
+          name.set("Throttle OpenTelemetry")
+          description.set("OpenTelemetry instrumentation for Throttle.")
+          url.set("https://throttle.aylett.eu/")
+          licenses {
+            license {
+              name.set("Apache-2.0")
+              url.set("https://www.apache.org/licenses/LICENSE-2.0")
+            }
+          }
+          scm {
+            connection.set("scm:git:https://github.com/andrewaylett/throttle.git")
+            developerConnection.set("scm:git:ssh://git@github.com:andrewaylett/throttle.git")
+            url.set("https://github.com/andrewaylett/throttle/")
+          }
+        }
+      }
+}
+
+signing {
+  setRequired({
+    gradle.taskGraph.hasTask(":throttle-opentelemetry:publishMavenJavaPublicationToSonatypeRepository")
+  })
+  val signingKey: String? = System.getenv("GPG_SIGNING_KEY")?.decodeBase64()?.utf8()
+  useInMemoryPgpKeys(signingKey, "")
+  sign(publishing.publications)
+}
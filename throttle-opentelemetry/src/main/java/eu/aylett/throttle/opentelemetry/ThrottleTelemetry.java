@@ -0,0 +1,145 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle.opentelemetry;
+
+import eu.aylett.throttle.ThrottleListener;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.TracerProvider;
+
+/**
+ * Records a throttle's decisions and outcomes as OpenTelemetry metrics, and
+ * adds an event to the current span for each decision.
+ * <p>
+ * The metrics are {@code throttle.decisions}, counted by
+ * {@code throttle.decision} of {@code admitted} or {@code rejected};
+ * {@code throttle.outcomes}, counted by {@code throttle.outcome} of
+ * {@code success} or {@code failure}; and {@code throttle.duration}, a
+ * histogram of how long the attempts let through took, in seconds. Every
+ * measurement has a {@code throttle.name} attribute.
+ * </p>
+ * <p>
+ * When there's a recording span, each decision adds a
+ * {@code throttle.admitted} or {@code throttle.rejected} event to it, with the
+ * {@code throttle.admit_probability} at the time.
+ * </p>
+ *
+ * @see eu.aylett.throttle.Throttle.Builder#listener(ThrottleListener)
+ */
+public final class ThrottleTelemetry implements ThrottleListener {
+  private static final String INSTRUMENTATION_SCOPE = "eu.aylett.throttle";
+  private static final AttributeKey<String> NAME = AttributeKey.stringKey("throttle.name");
+  private static final AttributeKey<String> DECISION = AttributeKey.stringKey("throttle.decision");
+  private static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("throttle.outcome");
+  private static final AttributeKey<Double> ADMIT_PROBABILITY = AttributeKey.doubleKey("throttle.admit_probability");
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private final String name;
+  private final LongCounter decisions;
+  private final LongCounter outcomes;
+  private final DoubleHistogram duration;
+  private final Attributes admitted;
+  private final Attributes rejected;
+  private final Attributes success;
+  private final Attributes failure;
+
+  private ThrottleTelemetry(OpenTelemetry openTelemetry, String name) {
+    this.name = name;
+    var meter = openTelemetry.getMeter(INSTRUMENTATION_SCOPE);
+    this.decisions = meter.counterBuilder("throttle.decisions")
+        .setDescription("Attempts let through or rejected by the throttle")
+        .setUnit("{attempt}")
+        .build();
+    this.outcomes = meter.counterBuilder("throttle.outcomes")
+        .setDescription("Outcomes of the attempts let through by the throttle")
+        .setUnit("{attempt}")
+        .build();
+    this.duration = meter.histogramBuilder("throttle.duration")
+        .setDescription("How long the attempts let through by the throttle took")
+        .setUnit("s")
+        .build();
+    this.admitted = Attributes.of(NAME, name, DECISION, "admitted");
+    this.rejected = Attributes.of(NAME, name, DECISION, "rejected");
+    this.success = Attributes.of(NAME, name, OUTCOME, "success");
+    this.failure = Attributes.of(NAME, name, OUTCOME, "failure");
+  }
+
+  /**
+   * A listener that reports a throttle's decisions through the given
+   * OpenTelemetry instance.
+   * <p>
+   * If the instance has neither a real meter provider nor a real tracer
+   * provider, there's nothing to report to, so this returns
+   * {@link ThrottleListener#NOOP} and the throttle doesn't even time its
+   * attempts.
+   * </p>
+   *
+   * @param openTelemetry
+   *          where to report to
+   * @param name
+   *          the name of the throttle, such as the dependency it protects
+   */
+  public static ThrottleListener create(OpenTelemetry openTelemetry, String name) {
+    if (openTelemetry.getMeterProvider() == MeterProvider.noop()
+        && openTelemetry.getTracerProvider() == TracerProvider.noop()) {
+      return ThrottleListener.NOOP;
+    }
+    return new ThrottleTelemetry(openTelemetry, name);
+  }
+
+  @Override
+  public void admitted(double admitProbability) {
+    decisions.add(1, admitted);
+    addEvent("throttle.admitted", admitProbability);
+  }
+
+  @Override
+  public void rejected(double admitProbability) {
+    decisions.add(1, rejected);
+    addEvent("throttle.rejected", admitProbability);
+  }
+
+  @Override
+  public void succeeded(long nanos) {
+    outcome(success, nanos);
+  }
+
+  @Override
+  public void failed(long nanos) {
+    outcome(failure, nanos);
+  }
+
+  private void outcome(Attributes attributes, long nanos) {
+    outcomes.add(1, attributes);
+    if (nanos != UNKNOWN_LATENCY) {
+      duration.record(nanos / NANOS_PER_SECOND, attributes);
+    }
+  }
+
+  private void addEvent(String event, double admitProbability) {
+    var span = Span.current();
+    // Only build the event's attributes if something will see them
+    if (span.isRecording()) {
+      span.addEvent(event, Attributes.of(NAME, name, ADMIT_PROBABILITY, admitProbability));
+    }
+  }
+}
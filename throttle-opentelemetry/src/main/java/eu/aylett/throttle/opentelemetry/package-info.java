@@ -0,0 +1,30 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Reports a {@link eu.aylett.throttle.Throttle}'s decisions through the
+ * OpenTelemetry API.
+ * <p>
+ * A {@link eu.aylett.throttle.opentelemetry.ThrottleTelemetry} is a
+ * {@link eu.aylett.throttle.ThrottleListener}: give it to the throttle's
+ * builder, and it records metrics for each decision and outcome, and marks the
+ * current span when an attempt is let through or shed.
+ * </p>
+ */
+@NullMarked
+package eu.aylett.throttle.opentelemetry;
+
+import org.jspecify.annotations.NullMarked;
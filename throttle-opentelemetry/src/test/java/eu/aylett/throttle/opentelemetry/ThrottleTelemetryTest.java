@@ -0,0 +1,125 @@
+/*
+ * Copyright 2025 Andrew Aylett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.aylett.throttle.opentelemetry;
+
+import eu.aylett.throttle.Throttle;
+import eu.aylett.throttle.ThrottleException;
+import eu.aylett.throttle.ThrottleListener;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ThrottleTelemetryTest {
+  private final InMemoryMetricReader metricReader = InMemoryMetricReader.create();
+  private final InMemorySpanExporter spanExporter = InMemorySpanExporter.create();
+  private final OpenTelemetrySdk openTelemetry = OpenTelemetrySdk.builder()
+      .setMeterProvider(SdkMeterProvider.builder().registerMetricReader(metricReader).build())
+      .setTracerProvider(SdkTracerProvider.builder().addSpanProcessor(SimpleSpanProcessor.create(spanExporter)).build())
+      .build();
+
+  @AfterEach
+  void tearDown() {
+    openTelemetry.close();
+  }
+
+  @Test
+  void recordsDecisionsOutcomesAndSpanEvents() {
+    var throttle = Throttle.builder()
+        .overhead(1.0)
+        .randomSource(() -> 1.0)
+        .listener(ThrottleTelemetry.create(openTelemetry, "db"))
+        .build();
+
+    var span = openTelemetry.getTracer("test").spanBuilder("request").startSpan();
+    var scope = span.makeCurrent();
+    try {
+      throttle.attempt(() -> "ok");
+      assertThrows(IllegalStateException.class, () -> throttle.attempt(() -> {
+        throw new IllegalStateException("fail");
+      }));
+      assertThrows(ThrottleException.class, () -> throttle.attempt(() -> "should not run"));
+    } finally {
+      scope.close();
+      span.end();
+    }
+
+    assertThat(sum("throttle.decisions", "throttle.decision", "admitted"), equalTo(2L));
+    assertThat(sum("throttle.decisions", "throttle.decision", "rejected"), equalTo(1L));
+    assertThat(sum("throttle.outcomes", "throttle.outcome", "success"), equalTo(1L));
+    assertThat(sum("throttle.outcomes", "throttle.outcome", "failure"), equalTo(1L));
+    assertThat(durations(), equalTo(2L));
+
+    var events = spanExporter.getFinishedSpanItems().getFirst().getEvents();
+    assertThat(events.stream().map(EventData::getName).toList(),
+        contains("throttle.admitted", "throttle.admitted", "throttle.rejected"));
+    var rejection = events.getLast().getAttributes();
+    assertThat(rejection.get(AttributeKey.stringKey("throttle.name")), equalTo("db"));
+    // 1.0 * (2.0 / 3.0)
+    assertThat(rejection.get(AttributeKey.doubleKey("throttle.admit_probability")), closeTo(2.0 / 3.0, 1e-9));
+  }
+
+  @Test
+  void recordsMetricsWithoutASpan() {
+    var throttle = Throttle.builder().listener(ThrottleTelemetry.create(openTelemetry, "db")).build();
+    throttle.attempt(() -> "ok");
+
+    assertThat(sum("throttle.decisions", "throttle.decision", "admitted"), equalTo(1L));
+    assertThat(spanExporter.getFinishedSpanItems().isEmpty(), equalTo(true));
+  }
+
+  @Test
+  void addsNothingWithoutOpenTelemetry() {
+    assertThat(ThrottleTelemetry.create(OpenTelemetry.noop(), "db"), sameInstance(ThrottleListener.NOOP));
+  }
+
+  private long sum(String metric, String key, String value) {
+    return metricReader.collectAllMetrics()
+        .stream()
+        .filter(data -> data.getName().equals(metric))
+        .flatMap(data -> data.getLongSumData().getPoints().stream())
+        .filter(point -> value.equals(point.getAttributes().get(AttributeKey.stringKey(key)))
+            && "db".equals(point.getAttributes().get(AttributeKey.stringKey("throttle.name"))))
+        .mapToLong(LongPointData::getValue)
+        .sum();
+  }
+
+  private long durations() {
+    return metricReader.collectAllMetrics()
+        .stream()
+        .filter(data -> data.getName().equals("throttle.duration"))
+        .flatMap(data -> data.getHistogramData().getPoints().stream())
+        .mapToLong(HistogramPointData::getCount)
+        .sum();
+  }
+}